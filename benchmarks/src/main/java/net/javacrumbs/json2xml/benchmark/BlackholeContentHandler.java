@@ -0,0 +1,49 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml.benchmark;
+
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Content handler that sinks all events into a {@link Blackhole} so they can not be optimized away.
+ */
+class BlackholeContentHandler extends DefaultHandler {
+
+    private final Blackhole blackhole;
+
+    BlackholeContentHandler(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        blackhole.consume(qName);
+        blackhole.consume(attributes);
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        blackhole.consume(qName);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        blackhole.consume(ch);
+        blackhole.consume(length);
+    }
+}
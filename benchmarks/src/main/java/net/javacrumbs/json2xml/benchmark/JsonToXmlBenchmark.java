@@ -0,0 +1,97 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import net.javacrumbs.json2xml.JsonSaxAdapter;
+import net.javacrumbs.json2xml.JsonXmlHelper;
+import net.javacrumbs.json2xml.JsonXmlReader;
+import net.javacrumbs.json2xml.JsonXmlWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON -&gt; XML benchmarks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonToXmlBenchmark {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public Payloads.Size size;
+
+    @Param({"FLAT", "NESTED", "ARRAY", "STRING"})
+    public Payloads.Shape shape;
+
+    @Param({"false", "true"})
+    public boolean typeAttributes;
+
+    private String json;
+
+    private Transformer transformer;
+
+    @Setup
+    public void setUp() throws Exception {
+        json = Payloads.generate(shape, size);
+        transformer = TransformerFactory.newInstance().newTransformer();
+    }
+
+    @Benchmark
+    public void jsonSaxAdapter(Blackhole blackhole) throws Exception {
+        new JsonSaxAdapter(JSON_FACTORY.createParser(json), new BlackholeContentHandler(blackhole), "", typeAttributes).parse();
+    }
+
+    @Benchmark
+    public void jsonXmlReaderToStream() throws Exception {
+        InputSource source = new InputSource(new StringReader(json));
+        transformer.transform(new SAXSource(new JsonXmlReader("", typeAttributes), source), new StreamResult(NullOutputStream.INSTANCE));
+    }
+
+    @Benchmark
+    public void jsonXmlWriterToStream() throws Exception {
+        new JsonXmlWriter("", typeAttributes).write(JSON_FACTORY.createParser(json), NullOutputStream.INSTANCE);
+    }
+
+    @Benchmark
+    public Node convertToDom() throws Exception {
+        return JsonXmlHelper.convertToDom(json, "", typeAttributes, null);
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml.benchmark;
+
+/**
+ * Generates deterministic JSON payloads of given shape and approximate size.
+ * All payloads have a single root object named "root", so they can be converted without an artificial root.
+ */
+public final class Payloads {
+
+    /**
+     * Approximate payload sizes.
+     */
+    public enum Size {
+        SMALL(1024),
+        MEDIUM(1024 * 1024),
+        LARGE(100 * 1024 * 1024);
+
+        private final int bytes;
+
+        Size(int bytes) {
+            this.bytes = bytes;
+        }
+
+        public int getBytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Payload shapes.
+     */
+    public enum Shape {
+        /** one object with many scalar fields of mixed types */
+        FLAT,
+        /** many subtrees of nested objects, each {@value #NESTING_DEPTH} levels deep */
+        NESTED,
+        /** arrays of arrays of numbers */
+        ARRAY,
+        /** long string values with characters that have to be escaped in XML */
+        STRING
+    }
+
+    static final int NESTING_DEPTH = 50;
+
+    private static final int DISTINCT_NAMES = 100;
+
+    private static final String TEXT = "Lorem ipsum dolor sit amet, <consectetur> & \"adipiscing\" elit. ";
+
+    private Payloads() {
+    }
+
+    /**
+     * Generates JSON of given shape that is at least size bytes long.
+     */
+    public static String generate(Shape shape, Size size) {
+        return generate(shape, size.getBytes());
+    }
+
+    /**
+     * Generates JSON of given shape that is at least targetBytes long.
+     */
+    public static String generate(Shape shape, int targetBytes) {
+        StringBuilder json = new StringBuilder(targetBytes + 1024);
+        switch (shape) {
+            case FLAT:
+                json.append("{\"root\":{");
+                for (int i = 0; json.length() < targetBytes; i++) {
+                    if (i > 0) {
+                        json.append(',');
+                    }
+                    appendScalarField(json, i);
+                }
+                json.append("}}");
+                break;
+            case NESTED:
+                json.append("{\"root\":{");
+                for (int i = 0; json.length() < targetBytes; i++) {
+                    if (i > 0) {
+                        json.append(',');
+                    }
+                    for (int depth = 0; depth < NESTING_DEPTH; depth++) {
+                        json.append("\"n").append(depth).append("\":{");
+                    }
+                    appendScalarField(json, i);
+                    for (int depth = 0; depth < NESTING_DEPTH; depth++) {
+                        json.append('}');
+                    }
+                }
+                json.append("}}");
+                break;
+            case ARRAY:
+                json.append("{\"root\":{\"items\":[");
+                for (int i = 0; json.length() < targetBytes; i++) {
+                    if (i > 0) {
+                        json.append(',');
+                    }
+                    json.append('[');
+                    for (int j = 0; j < 10; j++) {
+                        if (j > 0) {
+                            json.append(',');
+                        }
+                        json.append(i * 10 + j);
+                    }
+                    json.append(']');
+                }
+                json.append("]}}");
+                break;
+            case STRING:
+                json.append("{\"root\":{");
+                for (int i = 0; json.length() < targetBytes; i++) {
+                    if (i > 0) {
+                        json.append(',');
+                    }
+                    json.append("\"s").append(i % DISTINCT_NAMES).append("\":\"");
+                    for (int j = 0; j < 4; j++) {
+                        json.append(TEXT.replace("\"", "\\\""));
+                    }
+                    json.append('"');
+                }
+                json.append("}}");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+        return json.toString();
+    }
+
+    private static void appendScalarField(StringBuilder json, int i) {
+        json.append("\"f").append(i % DISTINCT_NAMES).append("\":");
+        switch (i % 5) {
+            case 0:
+                json.append(i);
+                break;
+            case 1:
+                json.append(i).append(".25");
+                break;
+            case 2:
+                json.append(i % 2 == 0);
+                break;
+            case 3:
+                json.append("\"value").append(i).append('"');
+                break;
+            default:
+                json.append("null");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml.benchmark;
+
+import net.javacrumbs.json2xml.JsonXmlHelper;
+import net.javacrumbs.json2xml.JsonXmlWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XML -&gt; JSON benchmarks. Conversion back to JSON needs type attributes, so the DOM is always created with them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XmlToJsonBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public Payloads.Size size;
+
+    @Param({"FLAT", "NESTED", "ARRAY", "STRING"})
+    public Payloads.Shape shape;
+
+    private Node node;
+
+    private String xml;
+
+    @Setup
+    public void setUp() throws Exception {
+        String json = Payloads.generate(shape, size);
+        node = JsonXmlHelper.convertToDom(json, "", true, null);
+        StringWriter writer = new StringWriter();
+        new JsonXmlWriter("", true).write(json, writer);
+        xml = writer.toString();
+    }
+
+    @Benchmark
+    public String convertToJson() throws Exception {
+        return JsonXmlHelper.convertToJson(node);
+    }
+
+    @Benchmark
+    public String convertToJsonStreaming() throws Exception {
+        return JsonXmlHelper.convertToJson(new InputSource(new StringReader(xml)));
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ElementNameConverter} decorator that remembers converted names, so an expensive converter is called only
+ * once per distinct JSON name. The same String instance is returned for all occurrences of a name, so
+ * the element names are shared.
+ * <pre>
+ *  ElementNameConverter converter = new CachingElementNameConverter(expensiveConverter, 10000);
+ *  new JsonXmlReader(namespace, addTypeAttributes, artificialRootName, converter);
+ * </pre>
+ * The cache is thread-safe and can be shared by all readers. When it grows over maxSize, names are evicted by the clock
+ * algorithm: a name which was used since the clock hand passed it last time gets a second chance, so frequently used
+ * names stay cached. Under concurrent access the size can exceed the limit temporarily by the number of writing threads.
+ */
+public class CachingElementNameConverter implements ElementNameConverter {
+
+    /**
+     * Default maximal number of cached names.
+     */
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    private final ElementNameConverter delegate;
+
+    private final int maxSize;
+
+    private final ConcurrentHashMap<String, Entry> cache;
+
+    /**
+     * Clock hand, guarded by the instance lock.
+     */
+    private Iterator<Map.Entry<String, Entry>> hand;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Creates converter caching up to {@value #DEFAULT_MAX_SIZE} names.
+     * @param delegate converter to be cached
+     */
+    public CachingElementNameConverter(ElementNameConverter delegate) {
+        this(delegate, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates CachingElementNameConverter.
+     * @param delegate converter to be cached
+     * @param maxSize maximal number of cached names
+     */
+    public CachingElementNameConverter(ElementNameConverter delegate, int maxSize) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate can not be null");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size has to be positive, was " + maxSize);
+        }
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.cache = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+    }
+
+    public String convertName(String name) {
+        Entry entry = cache.get(name);
+        if (entry != null) {
+            hitCount.increment();
+            // written only when changed, so hits of a hot name do not invalidate the cache line on each call
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return entry.converted;
+        }
+        missCount.increment();
+        String converted = delegate.convertName(name);
+        if (converted == null) {
+            return null;
+        }
+        if (cache.size() >= maxSize) {
+            evict();
+        }
+        Entry previous = cache.putIfAbsent(name, new Entry(converted));
+        return previous != null ? previous.converted : converted;
+    }
+
+    /**
+     * Moves the clock hand, clearing the referenced flags, until it finds enough names not used since its last pass.
+     */
+    private synchronized void evict() {
+        while (cache.size() >= maxSize) {
+            if (hand == null || !hand.hasNext()) {
+                hand = cache.entrySet().iterator();
+                if (!hand.hasNext()) {
+                    return;
+                }
+            }
+            Entry entry = hand.next().getValue();
+            if (entry.referenced) {
+                entry.referenced = false;
+            } else {
+                hand.remove();
+                evictionCount.increment();
+            }
+        }
+    }
+
+    /**
+     * Number of names served from the cache.
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Number of names that had to be converted by the delegate.
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Number of names removed from the cache because it was full.
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Number of currently cached names.
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Removes all cached names. Counters are not reset.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private static final class Entry {
+
+        private final String converted;
+
+        /**
+         * Set when the name is used, cleared when the clock hand passes.
+         */
+        private volatile boolean referenced;
+
+        private Entry(String converted) {
+            this.converted = converted;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precompiled shape of known JSON documents. For each path of the shape the plan holds the XML element name,
+ * already converted by the {@link ElementNameConverter}, so {@link JsonSaxAdapter} only looks the field up in the
+ * plan instead of converting its name. Fields which are not in the plan are converted the usual way, so
+ * documents not matching the plan are converted correctly, just without the benefit.
+ * <p>
+ * The plan can be compiled from sample documents or from a JSON Schema. Only "properties", "items",
+ * "additionalItems", "allOf", "anyOf" and "oneOf" keywords of the schema are used, other keywords (including "$ref")
+ * are ignored.
+ * <pre>
+ *	ConversionPlan plan = ConversionPlan.fromSamples(converter, sampleJson);
+ *	JsonXmlConfig config = JsonXmlConfig.builder().elementNameConverter(converter).plan(plan).build();
+ *	JsonXmlWriter jsonXmlWriter = new JsonXmlWriter(config);
+ * </pre>
+ * The converter of the plan has to be the same as the converter of the configuration, otherwise names of planned and
+ * not planned fields would be converted differently. The documents are compiled without recursion, so the plan is not
+ * limited by the stack size. Instances are immutable and can be shared between threads.
+ */
+public final class ConversionPlan {
+
+    private final Node root;
+
+    private final ElementNameConverter elementNameConverter;
+
+    private ConversionPlan(Node root, ElementNameConverter elementNameConverter) {
+        this.root = root;
+        this.elementNameConverter = elementNameConverter;
+    }
+
+    /**
+     * Compiles plan from sample documents. All the fields found in the samples are planned, items of an array
+     * are merged.
+     * @param nameConverter converter to convert JSON object names to valid XML element names, can be null
+     * @param samples sample JSON documents
+     */
+    public static ConversionPlan fromSamples(ElementNameConverter nameConverter, String... samples) {
+        NodeBuilder root = new NodeBuilder(null);
+        for (String sample : samples) {
+            try (JsonParser parser = JsonSaxAdapter.JSON_FACTORY.createParser(sample)) {
+                addSample(parser, root, nameConverter);
+            } catch (IOException e) {
+                throw new ParserException("Parsing error: " + e.getMessage(), e);
+            }
+        }
+        return new ConversionPlan(root.build(), nameConverter);
+    }
+
+    /**
+     * Compiles plan from a JSON Schema.
+     * @param nameConverter converter to convert JSON object names to valid XML element names, can be null
+     * @param schema JSON Schema of the documents
+     */
+    public static ConversionPlan fromSchema(ElementNameConverter nameConverter, String schema) {
+        NodeBuilder root = new NodeBuilder(null);
+        try (JsonParser parser = JsonSaxAdapter.JSON_FACTORY.createParser(schema)) {
+            addSchema(parser, parser.nextToken(), root, nameConverter);
+        } catch (IOException e) {
+            throw new ParserException("Parsing error: " + e.getMessage(), e);
+        }
+        return new ConversionPlan(root.build(), nameConverter);
+    }
+
+    /**
+     * Node of the document root.
+     */
+    Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Converter the plan was compiled with, can be null.
+     */
+    public ElementNameConverter getElementNameConverter() {
+        return elementNameConverter;
+    }
+
+    /**
+     * Adds the next value of the parser to the root. Objects and arrays which are not finished yet are kept on a stack.
+     */
+    private static void addSample(JsonParser parser, NodeBuilder root, ElementNameConverter nameConverter) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw new ParserException("Empty JSON");
+        }
+        Deque<NodeBuilder> containers = new ArrayDeque<>();
+        NodeBuilder node = root;
+        while (token != null) {
+            if (token.isStructStart()) {
+                containers.push(node);
+            }
+            // moves to the next value, leaving the finished containers
+            token = null;
+            while (token == null && !containers.isEmpty()) {
+                JsonToken next = parser.nextToken();
+                if (next == JsonToken.FIELD_NAME) {
+                    node = containers.peek().addField(parser.getCurrentName(), nameConverter);
+                    token = parser.nextToken();
+                } else if (next == JsonToken.END_OBJECT || next == JsonToken.END_ARRAY) {
+                    containers.pop();
+                } else {
+                    node = containers.peek().addItem();
+                    token = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the schema at the current token of the parser to the root. Schema objects and keyword values which are not
+     * finished yet are kept on a stack.
+     */
+    private static void addSchema(JsonParser parser, JsonToken token, NodeBuilder root, ElementNameConverter nameConverter) throws IOException {
+        Deque<SchemaScope> scopes = new ArrayDeque<>();
+        enterSchema(parser, token, root, scopes);
+        while (!scopes.isEmpty()) {
+            SchemaScope scope = scopes.peek();
+            JsonToken next = parser.nextToken();
+            if (next == JsonToken.END_OBJECT || next == JsonToken.END_ARRAY) {
+                scopes.pop();
+            } else if (scope.kind == ScopeKind.SCHEMA) {
+                String keyword = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("properties".equals(keyword) && value == JsonToken.START_OBJECT) {
+                    scopes.push(new SchemaScope(ScopeKind.PROPERTIES, scope.node));
+                } else if (("items".equals(keyword) || "additionalItems".equals(keyword)) && value == JsonToken.START_ARRAY) {
+                    scopes.push(new SchemaScope(ScopeKind.TUPLE, scope.node));
+                } else if ("items".equals(keyword) || "additionalItems".equals(keyword)) {
+                    enterSchema(parser, value, scope.node.addItem(), scopes);
+                } else if (("allOf".equals(keyword) || "anyOf".equals(keyword) || "oneOf".equals(keyword)) && value == JsonToken.START_ARRAY) {
+                    scopes.push(new SchemaScope(ScopeKind.ALTERNATIVES, scope.node));
+                } else {
+                    parser.skipChildren();
+                }
+            } else if (scope.kind == ScopeKind.PROPERTIES) {
+                NodeBuilder field = scope.node.addField(parser.getCurrentName(), nameConverter);
+                enterSchema(parser, parser.nextToken(), field, scopes);
+            } else if (scope.kind == ScopeKind.TUPLE) {
+                // all the items are merged
+                enterSchema(parser, next, scope.node.addItem(), scopes);
+            } else {
+                // alternatives describe the same value
+                enterSchema(parser, next, scope.node, scopes);
+            }
+        }
+    }
+
+    /**
+     * Starts the schema at the current token of the parser, boolean schemas are skipped.
+     */
+    private static void enterSchema(JsonParser parser, JsonToken token, NodeBuilder node, Deque<SchemaScope> scopes) throws IOException {
+        if (token == JsonToken.START_OBJECT) {
+            scopes.push(new SchemaScope(ScopeKind.SCHEMA, node));
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+    private enum ScopeKind {
+        /**
+         * Schema object, its fields are keywords.
+         */
+        SCHEMA,
+        /**
+         * Value of "properties", its fields are schemas of the fields.
+         */
+        PROPERTIES,
+        /**
+         * Array value of "items" or "additionalItems", its elements are schemas of the items.
+         */
+        TUPLE,
+        /**
+         * Value of "allOf", "anyOf" or "oneOf", its elements are schemas of the same value.
+         */
+        ALTERNATIVES
+    }
+
+    /**
+     * Schema object or keyword value being read, with the node it describes.
+     */
+    private static final class SchemaScope {
+
+        private final ScopeKind kind;
+
+        private final NodeBuilder node;
+
+        private SchemaScope(ScopeKind kind, NodeBuilder node) {
+            this.kind = kind;
+            this.node = node;
+        }
+    }
+
+    /**
+     * Planned value. Nodes are immutable, they are built by {@link NodeBuilder} when the plan is compiled.
+     */
+    static final class Node {
+
+        /**
+         * Converted name of the field.
+         */
+        private final String elementName;
+
+        private final Map<String, Node> fields;
+
+        private final Node item;
+
+        private Node(String elementName, Map<String, Node> fields, Node item) {
+            this.elementName = elementName;
+            this.fields = fields;
+            this.item = item;
+        }
+
+        String getElementName() {
+            return elementName;
+        }
+
+        /**
+         * Returns node of given field of an object, null if the field is not planned.
+         */
+        Node field(String name) {
+            return fields.get(name);
+        }
+
+        /**
+         * Returns node of items of an array, null if the items are not planned.
+         */
+        Node item() {
+            return item;
+        }
+    }
+
+    /**
+     * Planned value while the plan is compiled.
+     */
+    private static final class NodeBuilder {
+
+        private final String elementName;
+
+        private final Map<String, NodeBuilder> fields = new HashMap<>();
+
+        private NodeBuilder item;
+
+        /**
+         * Set by {@link #build()}.
+         */
+        private Node node;
+
+        private NodeBuilder(String elementName) {
+            this.elementName = elementName;
+        }
+
+        private NodeBuilder addField(String name, ElementNameConverter nameConverter) {
+            NodeBuilder field = fields.get(name);
+            if (field == null) {
+                field = new NodeBuilder(nameConverter != null ? nameConverter.convertName(name) : name);
+                fields.put(name, field);
+            }
+            return field;
+        }
+
+        private NodeBuilder addItem() {
+            if (item == null) {
+                item = new NodeBuilder(null);
+            }
+            return item;
+        }
+
+        /**
+         * Builds the tree of nodes. Builders are listed breadth-first and built in the reverse order, so the children
+         * are always built before their parent.
+         */
+        private Node build() {
+            List<NodeBuilder> builders = new ArrayList<>();
+            builders.add(this);
+            for (int i = 0; i < builders.size(); i++) {
+                NodeBuilder builder = builders.get(i);
+                builders.addAll(builder.fields.values());
+                if (builder.item != null) {
+                    builders.add(builder.item);
+                }
+            }
+            for (int i = builders.size() - 1; i >= 0; i--) {
+                builders.get(i).buildNode();
+            }
+            return node;
+        }
+
+        private void buildNode() {
+            Map<String, Node> builtFields;
+            if (fields.isEmpty()) {
+                builtFields = Collections.emptyMap();
+            } else {
+                builtFields = new HashMap<>();
+                for (Map.Entry<String, NodeBuilder> field : fields.entrySet()) {
+                    builtFields.put(field.getKey(), field.getValue().node);
+                }
+                builtFields = Collections.unmodifiableMap(builtFields);
+            }
+            node = new Node(elementName, builtFields, item != null ? item.node : null);
+        }
+    }
+}
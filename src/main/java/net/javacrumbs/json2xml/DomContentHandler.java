@@ -0,0 +1,72 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * SAX content handler that appends the elements it receives to a DOM node. Builds the same tree as
+ * an identity transformer with DOMResult, without the Transformer.
+ */
+class DomContentHandler extends DefaultHandler {
+
+    private final Document document;
+
+    private Node current;
+
+    /**
+     * Creates DomContentHandler
+     * @param parent node the elements are appended to, usually an empty Document
+     */
+    DomContentHandler(Node parent) {
+        this.document = parent.getNodeType() == Node.DOCUMENT_NODE ? (Document) parent : parent.getOwnerDocument();
+        this.current = parent;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        Element element = document.createElementNS(emptyToNull(uri), qName.isEmpty() ? localName : qName);
+        for (int i = 0; i < attributes.getLength(); i++) {
+            element.setAttributeNS(emptyToNull(attributes.getURI(i)), attributes.getQName(i), attributes.getValue(i));
+        }
+        current.appendChild(element);
+        current = element;
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        current = current.getParentNode();
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        Node last = current.getLastChild();
+        if (last != null && last.getNodeType() == Node.TEXT_NODE) {
+            ((Text) last).appendData(new String(ch, start, length));
+        } else {
+            current.appendChild(document.createTextNode(new String(ch, start, length)));
+        }
+    }
+
+    private static String emptyToNull(String uri) {
+        return uri == null || uri.isEmpty() ? null : uri;
+    }
+}
@@ -0,0 +1,253 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.w3c.dom.Document;
+import org.xml.sax.ContentHandler;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static com.fasterxml.jackson.core.JsonToken.END_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.END_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+
+/**
+ * Converts each element of a JSON array as a separate XML document, so a huge array can be processed record by record
+ * in constant memory. The array is addressed by a JSON Pointer, e.g. "/data/items", or "" for an array in the root.
+ * Each element becomes a document with root element named recordName, the same as with
+ * {@link JsonSaxAdapter} with artificial root.
+ * <pre>
+ *	JsonArraySplitter splitter = new JsonArraySplitter("/data/items", "item", namespace, addTypeAttributes);
+ *	Iterator&lt;Document&gt; documents = splitter.documents(jsonParser);
+ * </pre>
+ * The content before the array is skipped, the parser is not read after the end of the array.
+ * Instances are immutable and can be shared between threads.
+ */
+public class JsonArraySplitter {
+
+    private final JsonPointer arrayPath;
+
+    /**
+     * Configuration with the record name as the artificial root.
+     */
+    private final JsonXmlConfig recordConfig;
+
+    /**
+     * Creates JsonArraySplitter
+     * @param arrayPath JSON Pointer to the array
+     * @param recordName name of the root element of each record
+     */
+    public JsonArraySplitter(String arrayPath, String recordName) {
+        this(arrayPath, recordName, "");
+    }
+
+    /**
+     * Creates JsonArraySplitter
+     * @param arrayPath JSON Pointer to the array
+     * @param recordName name of the root element of each record
+     * @param namespaceUri namespace uri of the resulting XML.
+     */
+    public JsonArraySplitter(String arrayPath, String recordName, String namespaceUri) {
+        this(arrayPath, recordName, namespaceUri, false);
+    }
+
+    /**
+     * Creates JsonArraySplitter
+     * @param arrayPath JSON Pointer to the array
+     * @param recordName name of the root element of each record
+     * @param namespaceUri namespace uri of the resulting XML.
+     * @param addTypeAttributes if true adds attributes with type info
+     */
+    public JsonArraySplitter(String arrayPath, String recordName, String namespaceUri, boolean addTypeAttributes) {
+        this(arrayPath, recordName, namespaceUri, addTypeAttributes, null);
+    }
+
+    /**
+     * Creates JsonArraySplitter
+     * @param arrayPath JSON Pointer to the array
+     * @param recordName name of the root element of each record
+     * @param namespaceUri namespace uri of the resulting XML.
+     * @param addTypeAttributes if true adds attributes with type info
+     * @param elementNameConverter converter to convert JSON object names to valid XML element names
+     */
+    public JsonArraySplitter(String arrayPath, String recordName, String namespaceUri, boolean addTypeAttributes, ElementNameConverter elementNameConverter) {
+        this(arrayPath, recordName, namespaceUri, addTypeAttributes, elementNameConverter, JsonSaxAdapter.DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Creates JsonArraySplitter
+     * @param arrayPath JSON Pointer to the array
+     * @param recordName name of the root element of each record
+     * @param namespaceUri namespace uri of the resulting XML.
+     * @param addTypeAttributes if true adds attributes with type info
+     * @param elementNameConverter converter to convert JSON object names to valid XML element names
+     * @param maxDepth maximal nesting of JSON objects and arrays in a record, deeper records are rejected
+     */
+    public JsonArraySplitter(String arrayPath, String recordName, String namespaceUri, boolean addTypeAttributes, ElementNameConverter elementNameConverter, int maxDepth) {
+        this(arrayPath, recordName, JsonXmlConfig.builder()
+            .namespaceUri(namespaceUri)
+            .addTypeAttributes(addTypeAttributes)
+            .elementNameConverter(elementNameConverter)
+            .maxDepth(maxDepth)
+            .build());
+    }
+
+    /**
+     * Creates JsonArraySplitter
+     * @param arrayPath JSON Pointer to the array
+     * @param recordName name of the root element of each record, it replaces the artificial root name of the configuration
+     * @param config conversion settings of the records, paths of the filter are relative to the record
+     */
+    public JsonArraySplitter(String arrayPath, String recordName, JsonXmlConfig config) {
+        if (recordName == null || recordName.isEmpty()) {
+            throw new IllegalArgumentException("Record name has to be set");
+        }
+        if (config == null) {
+            throw new IllegalArgumentException("JsonXmlConfig can not be null");
+        }
+        this.arrayPath = JsonPointer.compile(arrayPath);
+        this.recordConfig = config.toBuilder().artificialRootName(recordName).build();
+    }
+
+    /**
+     * Emits each element of the array as a separate document, i.e. from startDocument to endDocument, to the content handler.
+     * @param jsonParser parsed JSON
+     * @param contentHandler handler receiving the records
+     * @return number of records
+     */
+    public long split(JsonParser jsonParser, ContentHandler contentHandler) throws ParserException {
+        long records = 0;
+        try {
+            moveToArray(jsonParser);
+            JsonToken token;
+            while ((token = jsonParser.nextToken()) != END_ARRAY) {
+                if (token == null) {
+                    throw new ParserException("Unexpected end of JSON");
+                }
+                convertRecord(jsonParser, contentHandler);
+                records++;
+            }
+        } catch (IOException e) {
+            throw new ParserException("Parsing error: " + e.getMessage(), e);
+        }
+        return records;
+    }
+
+    /**
+     * Returns iterator of DOM documents, one for each element of the array. The records are parsed when the iterator
+     * advances. The iterator throws {@link ParserException} when the JSON is not valid.
+     * @param jsonParser parsed JSON
+     */
+    public Iterator<Document> documents(final JsonParser jsonParser) throws ParserException {
+        try {
+            moveToArray(jsonParser);
+        } catch (IOException e) {
+            throw new ParserException("Parsing error: " + e.getMessage(), e);
+        }
+        return new Iterator<Document>() {
+            private JsonToken next;
+
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = jsonParser.nextToken();
+                    } catch (IOException e) {
+                        throw new ParserException("Parsing error: " + e.getMessage(), e);
+                    }
+                    if (next == null) {
+                        throw new ParserException("Unexpected end of JSON");
+                    }
+                }
+                return next != END_ARRAY;
+            }
+
+            public Document next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Document document = JsonDomBuilder.DOM_IMPLEMENTATION.createDocument(null, null, null);
+                convertRecord(jsonParser, new DomContentHandler(document));
+                next = null;
+                return document;
+            }
+        };
+    }
+
+    private void convertRecord(JsonParser jsonParser, ContentHandler contentHandler) {
+        recordConfig.createAdapter(jsonParser, contentHandler).parseCurrentValue();
+    }
+
+    /**
+     * Reads the parser up to the start of the array. Values that are not on the path are skipped.
+     */
+    private void moveToArray(JsonParser jsonParser) throws IOException {
+        JsonToken token = jsonParser.nextToken();
+        JsonPointer pointer = arrayPath;
+        while (!pointer.matches()) {
+            if (token == START_OBJECT && pointer.mayMatchProperty()) {
+                token = moveToField(jsonParser, pointer.getMatchingProperty());
+            } else if (token == START_ARRAY && pointer.mayMatchElement()) {
+                token = moveToElement(jsonParser, pointer.getMatchingIndex());
+            } else {
+                token = null;
+            }
+            if (token == null) {
+                throw new ParserException("Path " + arrayPath + " not found");
+            }
+            pointer = pointer.tail();
+        }
+        if (token != START_ARRAY) {
+            throw new ParserException("Value at path " + arrayPath + " is not an array");
+        }
+    }
+
+    private static JsonToken moveToField(JsonParser jsonParser, String name) throws IOException {
+        JsonToken token;
+        while ((token = jsonParser.nextToken()) == FIELD_NAME) {
+            JsonToken value = jsonParser.nextToken();
+            if (name.equals(jsonParser.getCurrentName())) {
+                return value;
+            }
+            jsonParser.skipChildren();
+        }
+        if (token != END_OBJECT) {
+            throw new ParserException("Unexpected end of JSON");
+        }
+        return null;
+    }
+
+    private static JsonToken moveToElement(JsonParser jsonParser, int index) throws IOException {
+        for (int i = 0; ; i++) {
+            JsonToken token = jsonParser.nextToken();
+            if (token == null) {
+                throw new ParserException("Unexpected end of JSON");
+            } else if (token == END_ARRAY) {
+                return null;
+            } else if (i == index) {
+                return token;
+            }
+            jsonParser.skipChildren();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.w3c.dom.DOMImplementation;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+
+/**
+ * Converts JSON directly to DOM, without JAXP Transformer in between.
+ * Produces the same tree as {@link JsonXmlReader} used with an identity transformer and DOMResult.
+ * <pre>
+ *	JsonDomBuilder builder = new JsonDomBuilder(namespace, addTypeAttributes, artificialRootName);
+ *	Document document = builder.build(json);
+ * </pre>
+ * {@link #buildLazy(String)} creates a read-only document whose elements are parsed only when their
+ * children are visited for the first time. It is useful when only a small part of a big document is read.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+public class JsonDomBuilder {
+
+    /**
+     * Thread-safe, looked up only once, unlike TransformerFactory or DocumentBuilderFactory.
+     */
+    static final DOMImplementation DOM_IMPLEMENTATION = createDomImplementation();
+
+    private final JsonXmlConfig config;
+
+    /**
+     * Creates JsonDomBuilder
+     */
+    public JsonDomBuilder() {
+        this("");
+    }
+
+    /**
+     * Creates JsonDomBuilder
+     * @param namespaceUri namespace uri of the resulting XML.
+     */
+    public JsonDomBuilder(String namespaceUri) {
+        this(namespaceUri, false);
+    }
+
+    /**
+     * Creates JsonDomBuilder
+     * @param namespaceUri namespace uri of the resulting XML.
+     * @param addTypeAttributes if true adds attributes with type info
+     */
+    public JsonDomBuilder(String namespaceUri, boolean addTypeAttributes) {
+        this(namespaceUri, addTypeAttributes, null);
+    }
+
+    /**
+     * Creates JsonDomBuilder
+     * @param namespaceUri namespace uri of the resulting XML.
+     * @param addTypeAttributes if true adds attributes with type info
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     */
+    public JsonDomBuilder(String namespaceUri, boolean addTypeAttributes, String artificialRootName) {
+        this(namespaceUri, addTypeAttributes, artificialRootName, null);
+    }
+
+    /**
+     * Creates JsonDomBuilder
+     * @param namespaceUri namespace uri of the resulting XML.
+     * @param addTypeAttributes if true adds attributes with type info
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     * @param elementNameConverter converter to convert JSON object names to valid XML element names
+     */
+    public JsonDomBuilder(String namespaceUri, boolean addTypeAttributes, String artificialRootName, ElementNameConverter elementNameConverter) {
+        this(namespaceUri, addTypeAttributes, artificialRootName, elementNameConverter, JsonSaxAdapter.DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Creates JsonDomBuilder
+     * @param namespaceUri namespace uri of the resulting XML.
+     * @param addTypeAttributes if true adds attributes with type info
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     * @param elementNameConverter converter to convert JSON object names to valid XML element names
+     * @param maxDepth maximal nesting of JSON objects and arrays, deeper documents are rejected
+     */
+    public JsonDomBuilder(String namespaceUri, boolean addTypeAttributes, String artificialRootName, ElementNameConverter elementNameConverter, int maxDepth) {
+        this(namespaceUri, addTypeAttributes, artificialRootName, elementNameConverter, maxDepth, JsonSaxAdapter.JSON_FACTORY);
+    }
+
+    /**
+     * Creates JsonDomBuilder
+     * @param namespaceUri namespace uri of the resulting XML.
+     * @param addTypeAttributes if true adds attributes with type info
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     * @param elementNameConverter converter to convert JSON object names to valid XML element names
+     * @param maxDepth maximal nesting of JSON objects and arrays, deeper documents are rejected
+     * @param jsonFactory factory used to create JSON parsers. It should be shared, so Jackson can reuse its buffers and field name tables.
+     */
+    public JsonDomBuilder(String namespaceUri, boolean addTypeAttributes, String artificialRootName, ElementNameConverter elementNameConverter, int maxDepth, JsonFactory jsonFactory) {
+        this(JsonXmlConfig.builder()
+            .namespaceUri(namespaceUri)
+            .addTypeAttributes(addTypeAttributes)
+            .artificialRootName(artificialRootName)
+            .elementNameConverter(elementNameConverter)
+            .maxDepth(maxDepth)
+            .jsonFactory(jsonFactory)
+            .build());
+    }
+
+    /**
+     * Creates JsonDomBuilder
+     * @param config conversion settings
+     */
+    public JsonDomBuilder(JsonXmlConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("JsonXmlConfig can not be null");
+        }
+        this.config = config;
+    }
+
+    /**
+     * Converts JSON to a new DOM document.
+     * @param json JSON to convert
+     */
+    public Document build(String json) throws ParserException {
+        // closed parser releases its buffers and field names to the factory
+        try (JsonParser jsonParser = config.getJsonFactory().createParser(json)) {
+            return build(jsonParser);
+        } catch (IOException e) {
+            throw new ParserException("Parsing error", e);
+        }
+    }
+
+    /**
+     * Converts JSON to a new DOM document.
+     * @param jsonParser parsed JSON
+     */
+    public Document build(JsonParser jsonParser) throws ParserException {
+        Document document = DOM_IMPLEMENTATION.createDocument(null, null, null);
+        config.createAdapter(jsonParser, new DomContentHandler(document)).parse();
+        return document;
+    }
+
+    /**
+     * Creates read-only DOM document backed by the JSON text. Children of an element are parsed when they are accessed
+     * for the first time, untouched subtrees are only skipped over by the parser and do not take any memory. The tree
+     * has the same structure as the one from {@link #build(String)}.
+     * <p>
+     * Syntax errors and too deep nesting in a subtree may be reported by {@link ParserException} when the subtree is expanded.
+     * Nodes can not be modified, cloned or imported. Same as other DOM implementations, the document is not thread-safe,
+     * not even for reading. XPath implementations which index the whole document (like the JDK one) expand all the nodes
+     * before the last node they return, so lazy expansion pays off mostly when the tree is navigated by the DOM methods.
+     * @param json JSON to convert
+     */
+    public Document buildLazy(String json) throws ParserException {
+        return new LazyDocument(json.toCharArray(), config);
+    }
+
+    public JsonXmlConfig getConfig() {
+        return config;
+    }
+
+    private static DOMImplementation createDomImplementation() {
+        try {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder().getDOMImplementation();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("Can not create DOM implementation", e);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import net.javacrumbs.json2xml.JsonXmlHelper.TYPE;
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+
+import static net.javacrumbs.json2xml.JsonXmlHelper.toTYPE;
+
+/**
+ * SAX content handler that writes XML with type attributes (generated with addTypeAttributes flag set as true)
+ * to a {@link JsonGenerator} as the events arrive. It is a streaming counterpart of
+ * {@link JsonXmlHelper#convertToJson(org.w3c.dom.Node, JsonGenerator, ElementNameConverter)}, memory consumption
+ * depends only on the nesting depth and on the size of the longest scalar value, not on the size of the document.
+ * <pre>
+ *	SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
+ *	parser.parse(inputStream, new JsonGeneratorContentHandler(generator));
+ * </pre>
+ * The generator is flushed at the end of the document, but not closed.
+ */
+public class JsonGeneratorContentHandler extends DefaultHandler {
+
+    private static final TYPE[] TYPES = TYPE.values();
+
+    private final JsonGenerator generator;
+
+    private final ElementNameConverter converter;
+
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Types of open elements, indexed by depth.
+     */
+    private byte[] types = new byte[32];
+
+    private int depth;
+
+    /**
+     * Depth of elements nested in a scalar element. Their text is part of the scalar value.
+     */
+    private int depthInScalar;
+
+    private Locator locator;
+
+    /**
+     * Creates JsonGeneratorContentHandler
+     * @param generator A configured JsonGenerator
+     */
+    public JsonGeneratorContentHandler(JsonGenerator generator) {
+        this(generator, name -> name);
+    }
+
+    /**
+     * Creates JsonGeneratorContentHandler
+     * @param generator A configured JsonGenerator
+     * @param converter Converter to convert elements names from XML to JSON
+     */
+    public JsonGeneratorContentHandler(JsonGenerator generator, ElementNameConverter converter) {
+        this.generator = generator;
+        this.converter = converter;
+    }
+
+    @Override
+    public void setDocumentLocator(Locator locator) {
+        this.locator = locator;
+    }
+
+    @Override
+    public void startDocument() {
+        depth = 0;
+        depthInScalar = 0;
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        try {
+            generator.flush();
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+        if (depthInScalar > 0) {
+            depthInScalar++;
+            return;
+        }
+        String typeValue = attributes.getValue("type");
+        TYPE type = toTYPE(typeValue);
+        if (type == null) {
+            throw new SAXParseException("Unknown type [" + typeValue + "] of element " + qName, locator);
+        }
+        try {
+            if (depth == 0) {
+                if (type != TYPE.OBJECT && type != TYPE.ARRAY) {
+                    throw new SAXException("invalid root type [" + type + "]");
+                }
+            } else if (types[depth - 1] != TYPE.ARRAY.ordinal()) {
+                generator.writeFieldName(converter.convertName(qName.length() > 0 ? qName : localName));
+            }
+            switch (type) {
+                case OBJECT:
+                    generator.writeStartObject();
+                    break;
+                case ARRAY:
+                    generator.writeStartArray();
+                    break;
+                default:
+                    text.setLength(0);
+                    depthInScalar = 1;
+                    break;
+            }
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+        push(type);
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (depthInScalar > 1) {
+            depthInScalar--;
+            return;
+        }
+        depthInScalar = 0;
+        TYPE type = TYPES[types[--depth]];
+        try {
+            switch (type) {
+                case OBJECT:
+                    generator.writeEndObject();
+                    break;
+                case ARRAY:
+                    generator.writeEndArray();
+                    break;
+                default:
+                    JsonXmlHelper.writeValue(generator, type, text.toString());
+                    break;
+            }
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (depthInScalar > 0) {
+            text.append(ch, start, length);
+        }
+    }
+
+    private void push(TYPE type) {
+        if (depth == types.length) {
+            byte[] newTypes = new byte[depth * 2];
+            System.arraycopy(types, 0, newTypes, 0, depth);
+            types = newTypes;
+        }
+        types[depth++] = (byte) type.ordinal();
+    }
+}
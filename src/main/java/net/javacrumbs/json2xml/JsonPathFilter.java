@@ -0,0 +1,278 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonPointer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Selects the parts of JSON that are converted to XML. Paths are JSON Pointers to object fields, e.g. "/document/c/d".
+ * Arrays are transparent, so "/document/h/i" selects field "i" of all objects in array "h". "*" matches any field name.
+ * Paths use the original JSON names, before {@link ElementNameConverter} is applied.
+ * <ul>
+ * <li>If there are no includes, everything except excluded paths is converted.</li>
+ * <li>Otherwise only the included fields with their whole content are converted, together with their ancestors.</li>
+ * <li>Excludes win over includes.</li>
+ * </ul>
+ * Skipped values are passed by the parser without generating any events or converting their names.
+ * <pre>
+ *	JsonPathFilter filter = new JsonPathFilter(Arrays.asList("/document/a", "/document/c"), Arrays.asList("/document/c/secret"));
+ * </pre>
+ * Instances are immutable and can be shared between threads.
+ */
+public class JsonPathFilter {
+
+    private static final String WILDCARD = "*";
+
+    private final List<String> includes;
+
+    private final List<String> excludes;
+
+    private final State rootState;
+
+    /**
+     * Creates JsonPathFilter
+     * @param includes paths to be converted, all paths are converted if empty
+     * @param excludes paths not to be converted
+     */
+    public JsonPathFilter(Collection<String> includes, Collection<String> excludes) {
+        this.includes = Collections.unmodifiableList(new ArrayList<>(includes));
+        this.excludes = Collections.unmodifiableList(new ArrayList<>(excludes));
+        PathNode root = new PathNode();
+        for (String include : includes) {
+            root.addInclude(JsonPointer.compile(include));
+        }
+        for (String exclude : excludes) {
+            root.addExclude(JsonPointer.compile(exclude));
+        }
+        this.rootState = new StateCompiler().compile(Collections.singleton(root), includes.isEmpty());
+    }
+
+    /**
+     * Creates filter converting only given paths.
+     */
+    public static JsonPathFilter includes(String... paths) {
+        return new JsonPathFilter(Arrays.asList(paths), Collections.<String>emptyList());
+    }
+
+    /**
+     * Creates filter converting everything except given paths.
+     */
+    public static JsonPathFilter excludes(String... paths) {
+        return new JsonPathFilter(Collections.<String>emptyList(), Arrays.asList(paths));
+    }
+
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * State at the document root.
+     */
+    State getRootState() {
+        return rootState != null ? rootState : State.NONE;
+    }
+
+    /**
+     * Position of the parser relative to the filter paths. States are precomputed, so evaluating a field is
+     * a single map lookup.
+     */
+    static final class State {
+
+        /**
+         * State inside of an included value with nothing excluded below it.
+         */
+        static final State INCLUDE_ALL = new State(true);
+
+        /**
+         * State of a value nothing is converted from.
+         */
+        static final State NONE = new State(false);
+
+        /**
+         * True if the value is included, false if it is only an ancestor of included values. Scalars and fields
+         * which are not on a path to an included value are skipped in that case.
+         */
+        private final boolean included;
+
+        private final Map<String, State> fields;
+
+        /**
+         * State for fields not listed in {@link #fields}, null if they are skipped.
+         */
+        private final State otherFields;
+
+        private State(boolean included) {
+            this.included = included;
+            this.fields = Collections.emptyMap();
+            this.otherFields = included ? this : null;
+        }
+
+        private State(boolean included, Map<String, State> fields, State otherFields) {
+            this.included = included;
+            this.fields = fields;
+            this.otherFields = otherFields;
+        }
+
+        boolean isIncluded() {
+            return included;
+        }
+
+        /**
+         * Returns state of the value of given field, null if the field is skipped.
+         */
+        State field(String name) {
+            if (this == INCLUDE_ALL) {
+                return INCLUDE_ALL;
+            }
+            State state = fields.get(name);
+            return state != null || fields.containsKey(name) ? state : otherFields;
+        }
+    }
+
+    /**
+     * Node of the trie of paths.
+     */
+    private static final class PathNode {
+        private final Map<String, PathNode> children = new HashMap<>();
+        private PathNode wildcard;
+        private boolean include;
+        private boolean exclude;
+
+        /**
+         * True if this node or any of its descendants is included.
+         */
+        private boolean leadsToInclude;
+
+        PathNode addInclude(JsonPointer pointer) {
+            PathNode node = add(pointer, true);
+            node.include = true;
+            return node;
+        }
+
+        PathNode addExclude(JsonPointer pointer) {
+            PathNode node = add(pointer, false);
+            node.exclude = true;
+            return node;
+        }
+
+        private PathNode add(JsonPointer pointer, boolean include) {
+            PathNode node = this;
+            node.leadsToInclude |= include;
+            for (JsonPointer p = pointer; !p.matches(); p = p.tail()) {
+                String name = p.getMatchingProperty();
+                if (WILDCARD.equals(name)) {
+                    if (node.wildcard == null) {
+                        node.wildcard = new PathNode();
+                    }
+                    node = node.wildcard;
+                } else {
+                    node = node.children.computeIfAbsent(name, n -> new PathNode());
+                }
+                node.leadsToInclude |= include;
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Converts the trie to states. A state represents the set of trie nodes matching the current path, so it is
+     * deterministic even with wildcards.
+     */
+    private static final class StateCompiler {
+        private final Map<Key, State> states = new HashMap<>();
+
+        State compile(Set<PathNode> nodes, boolean included) {
+            boolean leadsToInclude = false;
+            for (PathNode node : nodes) {
+                if (node.exclude) {
+                    return null;
+                }
+                included |= node.include;
+                leadsToInclude |= node.leadsToInclude;
+            }
+            if (!included && !leadsToInclude) {
+                return null;
+            }
+            if (nodes.isEmpty()) {
+                return State.INCLUDE_ALL;
+            }
+            Set<String> names = new LinkedHashSet<>();
+            Set<PathNode> wildcards = new LinkedHashSet<>();
+            for (PathNode node : nodes) {
+                names.addAll(node.children.keySet());
+                if (node.wildcard != null) {
+                    wildcards.add(node.wildcard);
+                }
+            }
+            if (included && names.isEmpty() && wildcards.isEmpty()) {
+                return State.INCLUDE_ALL;
+            }
+            Key key = new Key(nodes, included);
+            State state = states.get(key);
+            if (state == null) {
+                // children are on deeper paths, so they are compiled before the state without any cycle
+                Map<String, State> fields = new HashMap<>();
+                for (String name : names) {
+                    Set<PathNode> next = new LinkedHashSet<>(wildcards);
+                    for (PathNode node : nodes) {
+                        PathNode child = node.children.get(name);
+                        if (child != null) {
+                            next.add(child);
+                        }
+                    }
+                    fields.put(name, compile(next, included));
+                }
+                state = new State(included, Collections.unmodifiableMap(fields), compile(wildcards, included));
+                states.put(key, state);
+            }
+            return state;
+        }
+    }
+
+    private static final class Key {
+        private final Set<PathNode> nodes;
+        private final boolean included;
+
+        Key(Set<PathNode> nodes, boolean included) {
+            this.nodes = nodes;
+            this.included = included;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).included == included && ((Key) o).nodes.equals(nodes);
+        }
+
+        @Override
+        public int hashCode() {
+            return nodes.hashCode() * 2 + (included ? 1 : 0);
+        }
+    }
+}
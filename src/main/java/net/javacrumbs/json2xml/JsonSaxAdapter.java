@@ -16,20 +16,19 @@
 package net.javacrumbs.json2xml;
 
 import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
+import net.javacrumbs.json2xml.ConversionPlan.Node;
+import net.javacrumbs.json2xml.JsonPathFilter.State;
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
-import org.xml.sax.helpers.AttributesImpl;
-
-import java.io.IOException;
 
 import static com.fasterxml.jackson.core.JsonToken.END_ARRAY;
 import static com.fasterxml.jackson.core.JsonToken.END_OBJECT;
 import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.NOT_AVAILABLE;
 import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
 import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
 import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
@@ -56,11 +55,13 @@ import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
  */
 public class JsonSaxAdapter {
 
-    private static final AttributesImpl EMPTY_ATTRIBUTES = new AttributesImpl();
+    private static final Attributes EMPTY_ATTRIBUTES = TypeAttributes.EMPTY;
+
+    private JsonParser jsonParser;
 
-    private final JsonParser jsonParser;
+    private ContentHandler contentHandler;
 
-    private final ContentHandler contentHandler;
+    private final Locator locator = new DocumentLocator();
 
     private final String namespaceUri;
 
@@ -70,7 +71,73 @@ public class JsonSaxAdapter {
 
     private final ElementNameConverter nameConverter;
 
-    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    /**
+     * Factory shared by all converters that are not given one, so Jackson can reuse its buffers and symbol tables.
+     */
+    static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Default maximal nesting depth, i.e. no limit.
+     */
+    public static final int DEFAULT_MAX_DEPTH = Integer.MAX_VALUE;
+
+    private static final byte ROOT_OBJECT = 0;
+    private static final byte OBJECT = 1;
+    private static final byte ARRAY = 2;
+
+    private final int maxDepth;
+
+    /**
+     * Kinds of open JSON containers.
+     */
+    private byte[] kinds = new byte[16];
+
+    /**
+     * Names of elements wrapping open JSON containers.
+     */
+    private String[] names = new String[16];
+
+    /**
+     * Filter states of open JSON containers.
+     */
+    private State[] filterStates = new State[16];
+
+    /**
+     * Plan nodes of open JSON containers, the item node for arrays. Null if the container is not planned.
+     */
+    private Node[] planNodes = new Node[16];
+
+    private int depth;
+
+    private final State rootFilterState;
+
+    private final Node rootPlanNode;
+
+    /**
+     * Name of the last field, its value is the next token.
+     */
+    private String fieldName;
+
+    /**
+     * Filter state of the value of the last field, null if it is skipped.
+     */
+    private State fieldFilterState;
+
+    /**
+     * Plan node of the value of the last field, null if it is not planned.
+     */
+    private Node fieldPlanNode;
+
+    /**
+     * Nesting inside of a skipped container, used with non-blocking parsers which can not skip children at once.
+     */
+    private int skipDepth;
+
+    private boolean started;
+
+    private boolean finished;
+
+    private int rootElementsWritten;
 
     /**
      * Creates JsonSaxAdapter that coverts JSON to SAX events.
@@ -135,15 +202,84 @@ public class JsonSaxAdapter {
      */
     public JsonSaxAdapter(final JsonParser jsonParser, final ContentHandler contentHandler, final String namespaceUri,
                           final boolean addTypeAttributes, final String artificialRootName, final ElementNameConverter nameConverter) {
+        this(jsonParser, contentHandler, namespaceUri, addTypeAttributes, artificialRootName, nameConverter, DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Creates JsonSaxAdapter that coverts JSON to SAX events.
+     * @param jsonParser parsed JSON
+     * @param contentHandler target of SAX events
+     * @param namespaceUri namespace of the generated XML
+     * @param addTypeAttributes adds type information as attributes
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     * @param nameConverter converter to convert JSON object names to valid XML element names
+     * @param maxDepth maximal nesting of JSON objects and arrays, deeper documents are rejected with {@link ParserException}
+     */
+    public JsonSaxAdapter(final JsonParser jsonParser, final ContentHandler contentHandler, final String namespaceUri,
+                          final boolean addTypeAttributes, final String artificialRootName, final ElementNameConverter nameConverter,
+                          final int maxDepth) {
+        this(jsonParser, contentHandler, JsonXmlConfig.builder()
+            .namespaceUri(namespaceUri)
+            .addTypeAttributes(addTypeAttributes)
+            .artificialRootName(artificialRootName)
+            .elementNameConverter(nameConverter)
+            .maxDepth(maxDepth)
+            .build());
+    }
+
+    /**
+     * Creates JsonSaxAdapter that coverts JSON to SAX events.
+     * @param jsonParser parsed JSON
+     * @param contentHandler target of SAX events
+     * @param config conversion settings, the JSON factory of the configuration is not used
+     */
+    public JsonSaxAdapter(final JsonParser jsonParser, final ContentHandler contentHandler, final JsonXmlConfig config) {
+        this.maxDepth = config.getMaxDepth();
+        this.jsonParser = jsonParser;
+        this.contentHandler = contentHandler;
+        this.namespaceUri = config.getNamespaceUri();
+        this.addTypeAttributes = config.isAddTypeAttributes();
+        this.artificialRootName = config.getArtificialRootName();
+        this.nameConverter = config.getElementNameConverter();
+        this.rootFilterState = config.getPathFilter() != null ? config.getPathFilter().getRootState() : State.INCLUDE_ALL;
+        this.rootPlanNode = config.getPlan() != null ? config.getPlan().getRoot() : null;
+        contentHandler.setDocumentLocator(locator);
+    }
+
+    /**
+     * Prepares the adapter for conversion of another document. The stacks are kept, so converting a document of
+     * the same shape does not allocate them again. Works also after a failed conversion.
+     * @param jsonParser parsed JSON
+     * @param contentHandler target of SAX events
+     */
+    void reset(final JsonParser jsonParser, final ContentHandler contentHandler) {
+        release();
         this.jsonParser = jsonParser;
         this.contentHandler = contentHandler;
-        this.namespaceUri = namespaceUri;
-        this.addTypeAttributes = addTypeAttributes;
-        this.artificialRootName = artificialRootName;
-        this.nameConverter = nameConverter;
-        contentHandler.setDocumentLocator(new DocumentLocator());
+        contentHandler.setDocumentLocator(locator);
     }
 
+    /**
+     * Drops the parser, the content handler and the state of the last document, so an idle adapter does not keep
+     * them reachable. The adapter has to be {@link #reset(JsonParser, ContentHandler)} before it is used again.
+     */
+    void release() {
+        jsonParser = null;
+        contentHandler = null;
+        while (depth > 0) {
+            depth--;
+            names[depth] = null;
+            filterStates[depth] = null;
+            planNodes[depth] = null;
+        }
+        fieldName = null;
+        fieldFilterState = null;
+        fieldPlanNode = null;
+        skipDepth = 0;
+        started = false;
+        finished = false;
+        rootElementsWritten = 0;
+    }
 
     private static JsonParser parseJson(final String json) {
         try {
@@ -157,98 +293,227 @@ public class JsonSaxAdapter {
      * Method parses JSON and emits SAX events.
      */
     public void parse() throws ParserException {
+        parse(true);
+    }
+
+    /**
+     * Converts the value at the current token of the parser as a separate document. The parser is left at the last
+     * token of the value.
+     */
+    void parseCurrentValue() throws ParserException {
+        parse(false);
+    }
+
+    private void parse(final boolean readFirstToken) {
         try {
-            jsonParser.nextToken();
-            contentHandler.startDocument();
-            if (shouldAddArtificialRoot()) {
-                startElement(artificialRootName);
-                parseElement(artificialRootName, false);
-                endElement(artificialRootName);
-            } else if (START_OBJECT.equals(jsonParser.getCurrentToken())) {
-                int elementsWritten = parseObject();
-                if (elementsWritten>1) {
-                    throw new ParserException("More than one root element. Can not generate legal XML. You can set artificialRootName to generate an artificial root.");
-                }
-            } else {
-                throw new ParserException("Unsupported root element. Can not generate legal XML. You can set artificialRootName to generate an artificial root.");
+            if (!readFirstToken) {
+                handle(jsonParser.getCurrentToken());
             }
-            contentHandler.endDocument();
+            while (!finished) {
+                handle(jsonParser.nextToken());
+            }
+        } catch (Exception e) {
+            throw new ParserException("Parsing error: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Converts tokens until the document ends or a non-blocking parser runs out of input. Can be called
+     * repeatedly, the conversion continues where it has stopped.
+     * @return true if the whole document has been converted
+     */
+    boolean parseAvailable() throws ParserException {
+        try {
+            JsonToken token;
+            while (!finished && (token = jsonParser.nextToken()) != NOT_AVAILABLE) {
+                handle(token);
+            }
+            return finished;
         } catch (Exception e) {
             throw new ParserException("Parsing error: " + e.getMessage(), e);
         }
     }
 
+    private void handle(final JsonToken token) throws Exception {
+        if (token == NOT_AVAILABLE) {
+            throw new ParserException("Input not available, non-blocking parsers have to be used with JsonSaxAsyncAdapter");
+        }
+        if (!started) {
+            started = true;
+            contentHandler.startDocument();
+            startRoot(token);
+        } else if (token == null) {
+            throw new ParserException("Unexpected end of JSON");
+        } else {
+            handleToken(token);
+        }
+        if (depth == 0) {
+            finished = true;
+            contentHandler.endDocument();
+        }
+    }
+
     private boolean shouldAddArtificialRoot() {
         return artificialRootName != null && artificialRootName.length() > 0;
     }
 
     /**
-     * Parses generic object.
-     *
-     * @return number of elements written
-     * @throws IOException
-     * @throws JsonParseException
-     * @throws Exception
+     * Handles the first token of the document.
+     */
+    private void startRoot(final JsonToken token) throws Exception {
+        if (shouldAddArtificialRoot()) {
+            if (token == null) {
+                throw new ParserException("Empty JSON");
+            }
+            startValue(artificialRootName, token, rootFilterState, rootPlanNode);
+        } else if (START_OBJECT.equals(token)) {
+            push(ROOT_OBJECT, null, rootFilterState, rootPlanNode);
+        } else {
+            throw new ParserException("Unsupported root element. Can not generate legal XML. You can set artificialRootName to generate an artificial root.");
+        }
+    }
+
+    /**
+     * Handles one token inside of an object or an array. Nesting is kept on the explicit stack, so arbitrarily deep
+     * JSON does not consume the call stack.
      */
-    private int parseObject() throws Exception {
-        int elementsWritten = 0;
-        while (jsonParser.nextToken() != null && jsonParser.getCurrentToken() != END_OBJECT) {
-            if (FIELD_NAME.equals(jsonParser.getCurrentToken())) {
-                String elementName = convertName(jsonParser.getCurrentName());
-                //jump to element value
-                jsonParser.nextToken();
-                startElement(elementName);
-                parseElement(elementName, false);
-                endElement(elementName);
-                elementsWritten++;
+    private void handleToken(final JsonToken token) throws Exception {
+        if (skipDepth > 0) {
+            if (token.isStructStart()) {
+                skipDepth++;
+            } else if (token.isStructEnd()) {
+                skipDepth--;
+            }
+            return;
+        }
+        byte kind = kinds[depth - 1];
+        if (kind == ARRAY) {
+            if (token == END_ARRAY) {
+                endContainer();
             } else {
-                throw new ParserException("Error when parsing. Expected field name got " + jsonParser.getCurrentToken());
+                startValue(names[depth - 1], token, filterStates[depth - 1], planNodes[depth - 1]);
             }
+        } else if (fieldName != null) {
+            String name = fieldName;
+            fieldName = null;
+            handleFieldValue(kind, name, token, fieldFilterState, fieldPlanNode);
+        } else if (token == FIELD_NAME) {
+            handleFieldName();
+        } else if (token == END_OBJECT) {
+            endContainer();
+        } else {
+            throw new ParserException("Error when parsing. Expected field name got " + token);
         }
-        return elementsWritten;
     }
 
-    private String convertName(String name) {
-        if (nameConverter != null) {
-            return nameConverter.convertName(name);
+    /**
+     * Evaluates the field against the filter and the plan. Its value is handled when the next token comes.
+     */
+    private void handleFieldName() throws Exception {
+        fieldName = jsonParser.getCurrentName();
+        fieldFilterState = filterStates[depth - 1].field(fieldName);
+        Node planNode = planNodes[depth - 1];
+        fieldPlanNode = planNode != null ? planNode.field(fieldName) : null;
+    }
+
+    /**
+     * Converts value of a field. Skipped values are passed by the parser, without converting their names. Names of planned
+     * fields are taken from the plan.
+     */
+    private void handleFieldValue(final byte kind, final String name, final JsonToken token, final State state, final Node planNode) throws Exception {
+        boolean container = token == START_OBJECT || token == START_ARRAY;
+        if (state == null || (!container && !state.isIncluded())) {
+            // scalars are skipped also if the field is only an ancestor of included values
+            if (container) {
+                skipChildren();
+            }
+            return;
+        }
+        if (kind == ROOT_OBJECT && ++rootElementsWritten > 1) {
+            throw new ParserException("More than one root element. Can not generate legal XML. You can set artificialRootName to generate an artificial root.");
+        }
+        startValue(planNode != null ? planNode.getElementName() : convertName(name), token, state, planNode);
+    }
+
+    private void skipChildren() throws Exception {
+        if (jsonParser.canParseAsync()) {
+            skipDepth = 1;
         } else {
-            return name;
+            jsonParser.skipChildren();
         }
     }
 
     /**
-     * Pares JSON element.
-     * @param elementName
-     * @param inArray if the element is in an array
-     * @throws Exception
+     * Starts element for a value. Scalars are written completely, objects and arrays are pushed to the stack
+     * and closed when their end token comes.
      */
-    private void parseElement(final String elementName, final boolean inArray) throws Exception {
-        JsonToken currentToken = jsonParser.getCurrentToken();
-        if (inArray) {
-            startElement(elementName);
+    private void startValue(final String elementName, final JsonToken token, final State state, final Node planNode) throws Exception {
+        boolean container = token == START_OBJECT || token == START_ARRAY;
+        if (!container && !state.isIncluded()) {
+            return;
         }
-        if (START_OBJECT.equals(currentToken)) {
-            parseObject();
-        } else if (START_ARRAY.equals(currentToken)) {
-            parseArray(elementName);
-        } else if (currentToken.isScalarValue()) {
+        startElement(elementName);
+        if (token == START_OBJECT) {
+            push(OBJECT, elementName, state, planNode);
+        } else if (token == START_ARRAY) {
+            push(ARRAY, elementName, state, planNode != null ? planNode.item() : null);
+        } else {
             parseValue();
+            endElement(elementName);
         }
-        if (inArray) {
+    }
+
+    private void endContainer() throws SAXException {
+        depth--;
+        String elementName = names[depth];
+        names[depth] = null;
+        filterStates[depth] = null;
+        planNodes[depth] = null;
+        if (kinds[depth] != ROOT_OBJECT) {
             endElement(elementName);
         }
     }
 
-    private void parseArray(final String elementName) throws Exception {
-        while (jsonParser.nextToken() != END_ARRAY && jsonParser.getCurrentToken() != null) {
-            parseElement(elementName, true);
+    private void push(final byte kind, final String elementName, final State filterState, final Node planNode) {
+        if (depth >= maxDepth) {
+            throw new ParserException("Maximal depth " + maxDepth + " exceeded");
+        }
+        if (depth == kinds.length) {
+            byte[] newKinds = new byte[depth * 2];
+            System.arraycopy(kinds, 0, newKinds, 0, depth);
+            kinds = newKinds;
+            String[] newNames = new String[depth * 2];
+            System.arraycopy(names, 0, newNames, 0, depth);
+            names = newNames;
+            State[] newFilterStates = new State[depth * 2];
+            System.arraycopy(filterStates, 0, newFilterStates, 0, depth);
+            filterStates = newFilterStates;
+            Node[] newPlanNodes = new Node[depth * 2];
+            System.arraycopy(planNodes, 0, newPlanNodes, 0, depth);
+            planNodes = newPlanNodes;
+        }
+        kinds[depth] = kind;
+        names[depth] = elementName;
+        filterStates[depth] = filterState;
+        planNodes[depth] = planNode;
+        depth++;
+    }
+
+    private String convertName(String name) {
+        if (nameConverter != null) {
+            return nameConverter.convertName(name);
+        } else {
+            return name;
         }
     }
 
+    /**
+     * Passes text of the current scalar to the content handler. The characters are taken directly from the parser
+     * buffer (or from a shared constant for true and false) so no Strings or char arrays are created.
+     */
     private void parseValue() throws Exception {
         if (VALUE_NULL != jsonParser.getCurrentToken()) {
-            String text = jsonParser.getText();
-            contentHandler.characters(text.toCharArray(), 0, text.length());
+            contentHandler.characters(jsonParser.getTextCharacters(), jsonParser.getTextOffset(), jsonParser.getTextLength());
         }
     }
 
@@ -258,16 +523,13 @@ public class JsonSaxAdapter {
     }
 
 
+    /**
+     * Returns attributes of the current element. Attributes for the standard types are immutable instances
+     * shared by all adapters, so they must not be modified.
+     */
     protected Attributes getTypeAttributes() {
         if (addTypeAttributes) {
-            String currentTokenType = getCurrentTokenType();
-            if (currentTokenType != null) {
-                AttributesImpl attributes = new AttributesImpl();
-                attributes.addAttribute("", "type", "type", "string", currentTokenType);
-                return attributes;
-            } else {
-                return EMPTY_ATTRIBUTES;
-            }
+            return TypeAttributes.forType(getCurrentTokenType());
         } else {
             return EMPTY_ATTRIBUTES;
         }
@@ -275,7 +537,14 @@ public class JsonSaxAdapter {
 
 
     protected String getCurrentTokenType() {
-        switch (jsonParser.getCurrentToken()) {
+        return getTokenType(jsonParser.getCurrentToken());
+    }
+
+    /**
+     * Returns value of the type attribute for given token or null if the token does not have any.
+     */
+    static String getTokenType(JsonToken token) {
+        switch (token) {
             case VALUE_NUMBER_INT:
                 return "int";
             case VALUE_NUMBER_FLOAT:
@@ -0,0 +1,239 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.xml.sax.ContentHandler;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Push style variant of {@link JsonSaxAdapter}. JSON bytes (UTF-8) are fed in chunks as they arrive
+ * and SAX events are emitted as soon as the tokens are complete, so the conversion never blocks waiting for input.
+ * <pre>
+ *	JsonSaxAsyncAdapter adapter = new JsonSaxAsyncAdapter(contentHandler);
+ *	// for each received chunk
+ *	adapter.feed(chunk);
+ *	// when the whole body has been received
+ *	adapter.endOfInput();
+ * </pre>
+ * The data of a chunk are processed before feed returns, so the buffer can be reused afterwards. Data after the end of
+ * the document are ignored, the same as with {@link JsonSaxAdapter}. Instances are not thread safe, the chunks have
+ * to be fed sequentially.
+ */
+public class JsonSaxAsyncAdapter {
+
+    private final JsonParser jsonParser;
+
+    private final ByteArrayFeeder feeder;
+
+    private final JsonSaxAdapter adapter;
+
+    /**
+     * Buffer for copying of chunks that are not backed by an array.
+     */
+    private byte[] copyBuffer;
+
+    private boolean finished;
+
+    /**
+     * Creates JsonSaxAsyncAdapter that coverts JSON to SAX events.
+     * @param contentHandler target of SAX events
+     */
+    public JsonSaxAsyncAdapter(ContentHandler contentHandler) {
+        this(contentHandler, "");
+    }
+
+    /**
+     * Creates JsonSaxAsyncAdapter that coverts JSON to SAX events.
+     * @param contentHandler target of SAX events
+     * @param namespaceUri namespace of the generated XML
+     */
+    public JsonSaxAsyncAdapter(ContentHandler contentHandler, String namespaceUri) {
+        this(contentHandler, namespaceUri, false);
+    }
+
+    /**
+     * Creates JsonSaxAsyncAdapter that coverts JSON to SAX events.
+     * @param contentHandler target of SAX events
+     * @param namespaceUri namespace of the generated XML
+     * @param addTypeAttributes adds type information as attributes
+     */
+    public JsonSaxAsyncAdapter(ContentHandler contentHandler, String namespaceUri, boolean addTypeAttributes) {
+        this(contentHandler, namespaceUri, addTypeAttributes, null);
+    }
+
+    /**
+     * Creates JsonSaxAsyncAdapter that coverts JSON to SAX events.
+     * @param contentHandler target of SAX events
+     * @param namespaceUri namespace of the generated XML
+     * @param addTypeAttributes adds type information as attributes
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     */
+    public JsonSaxAsyncAdapter(ContentHandler contentHandler, String namespaceUri, boolean addTypeAttributes, String artificialRootName) {
+        this(contentHandler, namespaceUri, addTypeAttributes, artificialRootName, null);
+    }
+
+    /**
+     * Creates JsonSaxAsyncAdapter that coverts JSON to SAX events.
+     * @param contentHandler target of SAX events
+     * @param namespaceUri namespace of the generated XML
+     * @param addTypeAttributes adds type information as attributes
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     * @param nameConverter converter to convert JSON object names to valid XML element names
+     */
+    public JsonSaxAsyncAdapter(ContentHandler contentHandler, String namespaceUri, boolean addTypeAttributes, String artificialRootName,
+                               ElementNameConverter nameConverter) {
+        this(contentHandler, namespaceUri, addTypeAttributes, artificialRootName, nameConverter, JsonSaxAdapter.DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Creates JsonSaxAsyncAdapter that coverts JSON to SAX events.
+     * @param contentHandler target of SAX events
+     * @param namespaceUri namespace of the generated XML
+     * @param addTypeAttributes adds type information as attributes
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     * @param nameConverter converter to convert JSON object names to valid XML element names
+     * @param maxDepth maximal nesting of JSON objects and arrays, deeper documents are rejected with {@link ParserException}
+     */
+    public JsonSaxAsyncAdapter(ContentHandler contentHandler, String namespaceUri, boolean addTypeAttributes, String artificialRootName,
+                               ElementNameConverter nameConverter, int maxDepth) {
+        this(contentHandler, namespaceUri, addTypeAttributes, artificialRootName, nameConverter, maxDepth, JsonSaxAdapter.JSON_FACTORY);
+    }
+
+    /**
+     * Creates JsonSaxAsyncAdapter that coverts JSON to SAX events.
+     * @param contentHandler target of SAX events
+     * @param namespaceUri namespace of the generated XML
+     * @param addTypeAttributes adds type information as attributes
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     * @param nameConverter converter to convert JSON object names to valid XML element names
+     * @param maxDepth maximal nesting of JSON objects and arrays, deeper documents are rejected with {@link ParserException}
+     * @param jsonFactory factory creating the non-blocking parser
+     */
+    public JsonSaxAsyncAdapter(ContentHandler contentHandler, String namespaceUri, boolean addTypeAttributes, String artificialRootName,
+                               ElementNameConverter nameConverter, int maxDepth, JsonFactory jsonFactory) {
+        this(contentHandler, JsonXmlConfig.builder()
+            .namespaceUri(namespaceUri)
+            .addTypeAttributes(addTypeAttributes)
+            .artificialRootName(artificialRootName)
+            .elementNameConverter(nameConverter)
+            .maxDepth(maxDepth)
+            .jsonFactory(jsonFactory)
+            .build());
+    }
+
+    /**
+     * Creates JsonSaxAsyncAdapter that coverts JSON to SAX events.
+     * @param contentHandler target of SAX events
+     * @param config conversion settings
+     */
+    public JsonSaxAsyncAdapter(ContentHandler contentHandler, JsonXmlConfig config) {
+        try {
+            this.jsonParser = config.getJsonFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new ParserException("Parsing error: " + e.getMessage(), e);
+        }
+        this.feeder = (ByteArrayFeeder) jsonParser.getNonBlockingInputFeeder();
+        this.adapter = new JsonSaxAdapter(jsonParser, contentHandler, config);
+    }
+
+    /**
+     * Converts the next chunk of JSON.
+     * @param data chunk of JSON
+     * @return true if the whole document has been converted
+     */
+    public boolean feed(byte[] data) throws ParserException {
+        return feed(data, 0, data.length);
+    }
+
+    /**
+     * Converts the next chunk of JSON.
+     * @param data buffer with the chunk of JSON
+     * @param offset offset of the chunk in the buffer
+     * @param length length of the chunk
+     * @return true if the whole document has been converted
+     */
+    public boolean feed(byte[] data, int offset, int length) throws ParserException {
+        if (finished || length == 0) {
+            return finished;
+        }
+        try {
+            feeder.feedInput(data, offset, offset + length);
+        } catch (IOException e) {
+            throw new ParserException("Parsing error: " + e.getMessage(), e);
+        }
+        return parseAvailable();
+    }
+
+    /**
+     * Converts the remaining bytes of the buffer, the position of the buffer is moved to its limit.
+     * Direct buffers are copied to an internal array.
+     * @param buffer chunk of JSON
+     * @return true if the whole document has been converted
+     */
+    public boolean feed(ByteBuffer buffer) throws ParserException {
+        int length = buffer.remaining();
+        boolean done;
+        if (buffer.hasArray()) {
+            done = feed(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+        } else {
+            if (copyBuffer == null || copyBuffer.length < length) {
+                copyBuffer = new byte[length];
+            }
+            buffer.duplicate().get(copyBuffer, 0, length);
+            done = feed(copyBuffer, 0, length);
+        }
+        // Buffer cast keeps the call binary compatible with Java 8
+        ((Buffer) buffer).position(buffer.limit());
+        return done;
+    }
+
+    /**
+     * Signals that all the input has been fed and converts the rest of the document.
+     * @throws ParserException if the document is not complete
+     */
+    public void endOfInput() throws ParserException {
+        if (!finished) {
+            feeder.endOfInput();
+            parseAvailable();
+        }
+    }
+
+    /**
+     * Returns true if the whole document has been converted.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    private boolean parseAvailable() {
+        finished = adapter.parseAvailable();
+        if (finished) {
+            try {
+                jsonParser.close();
+            } catch (IOException e) {
+                throw new ParserException("Parsing error: " + e.getMessage(), e);
+            }
+        }
+        return finished;
+    }
+}
@@ -0,0 +1,686 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import net.javacrumbs.json2xml.ConversionPlan.Node;
+import net.javacrumbs.json2xml.JsonPathFilter.State;
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+
+import static com.fasterxml.jackson.core.JsonToken.END_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.END_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
+
+/**
+ * Pull based StAX view of JSON. Produces the same elements and attributes as {@link JsonSaxAdapter}, but JSON is read
+ * only when the consumer asks for the next event. Nothing is buffered, text of scalar values is read directly
+ * from the parser.
+ * <pre>
+ *  XMLStreamReader reader = new JsonXMLStreamReader(jsonParser, namespaceUri, addTypeAttributes, artificialRootName);
+ *  Object result = unmarshaller.unmarshal(reader);
+ * </pre>
+ * Nesting deeper than maxDepth of the configuration is rejected by {@link ParserException} thrown from {@link #next()}.
+ */
+public class JsonXMLStreamReader implements XMLStreamReader {
+
+    private static final byte ROOT_OBJECT = 0;
+    private static final byte OBJECT = 1;
+    private static final byte ARRAY = 2;
+
+    private final JsonParser jsonParser;
+
+    private final String namespaceUri;
+
+    private final boolean addTypeAttributes;
+
+    private final String artificialRootName;
+
+    private final ElementNameConverter nameConverter;
+
+    private final int maxDepth;
+
+    private final State rootFilterState;
+
+    private final Node rootPlanNode;
+
+    /**
+     * Open JSON containers.
+     */
+    private byte[] kinds = new byte[16];
+
+    /**
+     * Names of elements wrapping open JSON containers.
+     */
+    private String[] names = new String[16];
+
+    /**
+     * Filter states of open JSON containers.
+     */
+    private State[] filterStates = new State[16];
+
+    /**
+     * Plan of fields of open objects or of items of open arrays, null if not planned.
+     */
+    private Node[] planNodes = new Node[16];
+
+    private int depth;
+
+    private int eventType = START_DOCUMENT;
+
+    /**
+     * Name of the current element.
+     */
+    private String localName;
+
+    /**
+     * Value of the type attribute of the current element.
+     */
+    private String type;
+
+    /**
+     * The current element is a scalar, its text and END_ELEMENT will follow.
+     */
+    private boolean inScalar;
+
+    private int rootElementsWritten;
+
+    /**
+     * Creates JsonXMLStreamReader
+     * @param jsonParser parsed JSON
+     */
+    public JsonXMLStreamReader(final JsonParser jsonParser) {
+        this(jsonParser, "");
+    }
+
+    /**
+     * Creates JsonXMLStreamReader
+     * @param jsonParser parsed JSON
+     * @param namespaceUri namespace of the generated XML
+     */
+    public JsonXMLStreamReader(final JsonParser jsonParser, final String namespaceUri) {
+        this(jsonParser, namespaceUri, false);
+    }
+
+    /**
+     * Creates JsonXMLStreamReader
+     * @param jsonParser parsed JSON
+     * @param namespaceUri namespace of the generated XML
+     * @param addTypeAttributes adds type information as attributes
+     */
+    public JsonXMLStreamReader(final JsonParser jsonParser, final String namespaceUri, final boolean addTypeAttributes) {
+        this(jsonParser, namespaceUri, addTypeAttributes, null);
+    }
+
+    /**
+     * Creates JsonXMLStreamReader
+     * @param jsonParser parsed JSON
+     * @param namespaceUri namespace of the generated XML
+     * @param addTypeAttributes adds type information as attributes
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     */
+    public JsonXMLStreamReader(final JsonParser jsonParser, final String namespaceUri, final boolean addTypeAttributes,
+                               final String artificialRootName) {
+        this(jsonParser, namespaceUri, addTypeAttributes, artificialRootName, null);
+    }
+
+    /**
+     * Creates JsonXMLStreamReader
+     * @param jsonParser parsed JSON
+     * @param namespaceUri namespace of the generated XML
+     * @param addTypeAttributes adds type information as attributes
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     * @param nameConverter converter to convert JSON object names to valid XML element names
+     */
+    public JsonXMLStreamReader(final JsonParser jsonParser, final String namespaceUri, final boolean addTypeAttributes,
+                               final String artificialRootName, final ElementNameConverter nameConverter) {
+        this(jsonParser, JsonXmlConfig.builder()
+            .namespaceUri(namespaceUri)
+            .addTypeAttributes(addTypeAttributes)
+            .artificialRootName(artificialRootName)
+            .elementNameConverter(nameConverter)
+            .build());
+    }
+
+    /**
+     * Creates JsonXMLStreamReader
+     * @param jsonParser parsed JSON
+     * @param config conversion settings, the JSON factory of the configuration is not used
+     */
+    public JsonXMLStreamReader(final JsonParser jsonParser, final JsonXmlConfig config) {
+        this.jsonParser = jsonParser;
+        this.namespaceUri = config.getNamespaceUri() != null ? config.getNamespaceUri() : "";
+        this.addTypeAttributes = config.isAddTypeAttributes();
+        this.artificialRootName = config.getArtificialRootName();
+        this.nameConverter = config.getElementNameConverter();
+        this.maxDepth = config.getMaxDepth();
+        this.rootFilterState = config.getPathFilter() != null ? config.getPathFilter().getRootState() : State.INCLUDE_ALL;
+        this.rootPlanNode = config.getPlan() != null ? config.getPlan().getRoot() : null;
+    }
+
+    public int next() throws XMLStreamException {
+        try {
+            return eventType = nextEvent();
+        } catch (IOException e) {
+            throw new XMLStreamException("Parsing error: " + e.getMessage(), getLocation(), e);
+        }
+    }
+
+    private int nextEvent() throws IOException, XMLStreamException {
+        switch (eventType) {
+            case START_DOCUMENT:
+                JsonToken rootToken = jsonParser.nextToken();
+                if (artificialRootName != null && artificialRootName.length() > 0) {
+                    if (rootToken != null && isSkipped(rootToken, rootFilterState)) {
+                        return END_DOCUMENT;
+                    }
+                    return startElement(artificialRootName, rootToken, rootFilterState, rootPlanNode);
+                } else if (rootToken == START_OBJECT) {
+                    push(ROOT_OBJECT, null, rootFilterState, rootPlanNode);
+                } else {
+                    throw new XMLStreamException("Unsupported root element. Can not generate legal XML. You can set artificialRootName to generate an artificial root.", getLocation());
+                }
+                break;
+            case END_DOCUMENT:
+                throw new IllegalStateException("No more events");
+            case START_ELEMENT:
+                if (inScalar) {
+                    return scalarHasText() ? CHARACTERS : endScalar();
+                }
+                break;
+            case CHARACTERS:
+                return endScalar();
+            case END_ELEMENT:
+                if (depth == 0) {
+                    // artificial root has been closed
+                    return END_DOCUMENT;
+                }
+                break;
+        }
+        // values not selected by the filter are skipped, the loop ends with the next event
+        while (true) {
+            JsonToken token = jsonParser.nextToken();
+            if (token == null) {
+                throw new XMLStreamException("Unexpected end of JSON", getLocation());
+            }
+            if (kinds[depth - 1] == ARRAY) {
+                if (token == END_ARRAY) {
+                    return endContainer();
+                }
+                if (!isSkipped(token, filterStates[depth - 1])) {
+                    return startElement(names[depth - 1], token, filterStates[depth - 1], planNodes[depth - 1]);
+                }
+            } else if (token == END_OBJECT) {
+                if (kinds[depth - 1] == ROOT_OBJECT) {
+                    depth--;
+                    filterStates[depth] = null;
+                    planNodes[depth] = null;
+                    return END_DOCUMENT;
+                }
+                return endContainer();
+            } else if (token == FIELD_NAME) {
+                String fieldName = jsonParser.getCurrentName();
+                State state = filterStates[depth - 1].field(fieldName);
+                JsonToken value = jsonParser.nextToken();
+                if (state == null || (value != null && isSkipped(value, state))) {
+                    jsonParser.skipChildren();
+                    continue;
+                }
+                if (kinds[depth - 1] == ROOT_OBJECT && ++rootElementsWritten > 1) {
+                    throw new XMLStreamException("More than one root element. Can not generate legal XML. You can set artificialRootName to generate an artificial root.", getLocation());
+                }
+                Node planNode = planNodes[depth - 1] != null ? planNodes[depth - 1].field(fieldName) : null;
+                String elementName = planNode != null ? planNode.getElementName() : convertName(fieldName);
+                return startElement(elementName, value, state, planNode);
+            } else {
+                throw new XMLStreamException("Error when parsing. Expected field name got " + token, getLocation());
+            }
+        }
+    }
+
+    /**
+     * Scalars are skipped also if they are only on the path to included values.
+     */
+    private static boolean isSkipped(JsonToken token, State state) {
+        return !state.isIncluded() && token != START_OBJECT && token != START_ARRAY;
+    }
+
+    private int startElement(String elementName, JsonToken token, State state, Node planNode) {
+        localName = elementName;
+        type = addTypeAttributes ? JsonSaxAdapter.getTokenType(token) : null;
+        if (token == START_OBJECT) {
+            push(OBJECT, elementName, state, planNode);
+        } else if (token == START_ARRAY) {
+            push(ARRAY, elementName, state, planNode != null ? planNode.item() : null);
+        } else {
+            inScalar = true;
+        }
+        return START_ELEMENT;
+    }
+
+    private int endScalar() {
+        inScalar = false;
+        return END_ELEMENT;
+    }
+
+    private int endContainer() {
+        localName = names[--depth];
+        names[depth] = null;
+        filterStates[depth] = null;
+        planNodes[depth] = null;
+        return END_ELEMENT;
+    }
+
+    private void push(byte kind, String elementName, State filterState, Node planNode) {
+        if (depth >= maxDepth) {
+            throw new ParserException("Maximal depth " + maxDepth + " exceeded");
+        }
+        if (depth == kinds.length) {
+            byte[] newKinds = new byte[depth * 2];
+            System.arraycopy(kinds, 0, newKinds, 0, depth);
+            kinds = newKinds;
+            String[] newNames = new String[depth * 2];
+            System.arraycopy(names, 0, newNames, 0, depth);
+            names = newNames;
+            State[] newFilterStates = new State[depth * 2];
+            System.arraycopy(filterStates, 0, newFilterStates, 0, depth);
+            filterStates = newFilterStates;
+            Node[] newPlanNodes = new Node[depth * 2];
+            System.arraycopy(planNodes, 0, newPlanNodes, 0, depth);
+            planNodes = newPlanNodes;
+        }
+        kinds[depth] = kind;
+        names[depth] = elementName;
+        filterStates[depth] = filterState;
+        planNodes[depth] = planNode;
+        depth++;
+    }
+
+    private String convertName(String name) {
+        if (nameConverter != null) {
+            return nameConverter.convertName(name);
+        } else {
+            return name;
+        }
+    }
+
+    /**
+     * Returns true if the current element is the root element, i.e. it should declare the namespace.
+     */
+    private boolean isRootElement() {
+        if (eventType != START_ELEMENT && eventType != END_ELEMENT) {
+            return false;
+        }
+        int elementDepth = eventType == START_ELEMENT && !inScalar ? depth - 1 : depth;
+        return elementDepth == 0 || (elementDepth == 1 && kinds[0] == ROOT_OBJECT);
+    }
+
+    public Object getProperty(String name) {
+        return null;
+    }
+
+    public void require(int type, String namespaceURI, String localName) throws XMLStreamException {
+        if (type != eventType) {
+            throw new XMLStreamException("Expected event " + type + " got " + eventType, getLocation());
+        }
+        if (namespaceURI != null && !namespaceURI.equals(getNamespaceURI())) {
+            throw new XMLStreamException("Expected namespace " + namespaceURI + " got " + getNamespaceURI(), getLocation());
+        }
+        if (localName != null && !localName.equals(getLocalName())) {
+            throw new XMLStreamException("Expected name " + localName + " got " + getLocalName(), getLocation());
+        }
+    }
+
+    public String getElementText() throws XMLStreamException {
+        if (eventType != START_ELEMENT) {
+            throw new XMLStreamException("Current event is not START_ELEMENT", getLocation());
+        }
+        StringBuilder result = new StringBuilder();
+        while (next() != END_ELEMENT) {
+            if (eventType == CHARACTERS) {
+                result.append(getTextCharacters(), getTextStart(), getTextLength());
+            } else {
+                throw new XMLStreamException("Element text only expected", getLocation());
+            }
+        }
+        return result.toString();
+    }
+
+    public int nextTag() throws XMLStreamException {
+        next();
+        while (eventType == CHARACTERS && isWhiteSpace()) {
+            next();
+        }
+        if (eventType != START_ELEMENT && eventType != END_ELEMENT) {
+            throw new XMLStreamException("Expected start or end tag", getLocation());
+        }
+        return eventType;
+    }
+
+    public boolean hasNext() {
+        return eventType != END_DOCUMENT;
+    }
+
+    public void close() throws XMLStreamException {
+        //the parser is owned by the caller
+    }
+
+    public String getNamespaceURI(String prefix) {
+        if (XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
+            return namespaceUri;
+        } else if (XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+            return XMLConstants.XML_NS_URI;
+        } else if (XMLConstants.XMLNS_ATTRIBUTE.equals(prefix)) {
+            return XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+        } else {
+            return null;
+        }
+    }
+
+    public boolean isStartElement() {
+        return eventType == START_ELEMENT;
+    }
+
+    public boolean isEndElement() {
+        return eventType == END_ELEMENT;
+    }
+
+    public boolean isCharacters() {
+        return eventType == CHARACTERS;
+    }
+
+    public boolean isWhiteSpace() {
+        if (eventType != CHARACTERS) {
+            return false;
+        }
+        char[] text = getTextCharacters();
+        int end = getTextStart() + getTextLength();
+        for (int i = getTextStart(); i < end; i++) {
+            if (!Character.isWhitespace(text[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getAttributeValue(String namespaceURI, String localName) {
+        checkStartElement();
+        if (type != null && "type".equals(localName) && (namespaceURI == null || namespaceURI.isEmpty())) {
+            return type;
+        }
+        return null;
+    }
+
+    public int getAttributeCount() {
+        checkStartElement();
+        return type != null ? 1 : 0;
+    }
+
+    public QName getAttributeName(int index) {
+        checkAttribute(index);
+        return new QName("type");
+    }
+
+    public String getAttributeNamespace(int index) {
+        checkAttribute(index);
+        return null;
+    }
+
+    public String getAttributeLocalName(int index) {
+        checkAttribute(index);
+        return "type";
+    }
+
+    public String getAttributePrefix(int index) {
+        checkAttribute(index);
+        return XMLConstants.DEFAULT_NS_PREFIX;
+    }
+
+    public String getAttributeType(int index) {
+        checkAttribute(index);
+        return "CDATA";
+    }
+
+    public String getAttributeValue(int index) {
+        checkAttribute(index);
+        return type;
+    }
+
+    public boolean isAttributeSpecified(int index) {
+        checkAttribute(index);
+        return true;
+    }
+
+    private void checkStartElement() {
+        if (eventType != START_ELEMENT) {
+            throw new IllegalStateException("Current event is not START_ELEMENT");
+        }
+    }
+
+    private void checkAttribute(int index) {
+        if (index < 0 || index >= getAttributeCount()) {
+            throw new IndexOutOfBoundsException("Invalid attribute index " + index);
+        }
+    }
+
+    public int getNamespaceCount() {
+        if (eventType != START_ELEMENT && eventType != END_ELEMENT) {
+            throw new IllegalStateException("Current event is not START_ELEMENT or END_ELEMENT");
+        }
+        return !namespaceUri.isEmpty() && isRootElement() ? 1 : 0;
+    }
+
+    public String getNamespacePrefix(int index) {
+        checkNamespace(index);
+        return null;
+    }
+
+    public String getNamespaceURI(int index) {
+        checkNamespace(index);
+        return namespaceUri;
+    }
+
+    private void checkNamespace(int index) {
+        if (index < 0 || index >= getNamespaceCount()) {
+            throw new IndexOutOfBoundsException("Invalid namespace index " + index);
+        }
+    }
+
+    public NamespaceContext getNamespaceContext() {
+        return new NamespaceContext() {
+            public String getNamespaceURI(String prefix) {
+                if (prefix == null) {
+                    throw new IllegalArgumentException("Prefix can not be null");
+                }
+                String uri = JsonXMLStreamReader.this.getNamespaceURI(prefix);
+                return uri != null ? uri : XMLConstants.NULL_NS_URI;
+            }
+
+            public String getPrefix(String uri) {
+                Iterator<String> prefixes = getPrefixes(uri);
+                return prefixes.hasNext() ? prefixes.next() : null;
+            }
+
+            public Iterator<String> getPrefixes(String uri) {
+                if (uri == null) {
+                    throw new IllegalArgumentException("Namespace URI can not be null");
+                } else if (uri.equals(namespaceUri)) {
+                    return Collections.singletonList(XMLConstants.DEFAULT_NS_PREFIX).iterator();
+                } else if (XMLConstants.XML_NS_URI.equals(uri)) {
+                    return Collections.singletonList(XMLConstants.XML_NS_PREFIX).iterator();
+                } else if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(uri)) {
+                    return Collections.singletonList(XMLConstants.XMLNS_ATTRIBUTE).iterator();
+                } else {
+                    return Collections.<String>emptyList().iterator();
+                }
+            }
+        };
+    }
+
+    public int getEventType() {
+        return eventType;
+    }
+
+    public String getText() {
+        checkCharacters();
+        try {
+            return jsonParser.getText();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public char[] getTextCharacters() {
+        checkCharacters();
+        try {
+            return jsonParser.getTextCharacters();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length) throws XMLStreamException {
+        int available = getTextLength() - sourceStart;
+        if (available < 0) {
+            throw new IndexOutOfBoundsException("Invalid source start " + sourceStart);
+        }
+        int count = Math.min(available, length);
+        System.arraycopy(getTextCharacters(), getTextStart() + sourceStart, target, targetStart, count);
+        return count;
+    }
+
+    public int getTextStart() {
+        checkCharacters();
+        try {
+            return jsonParser.getTextOffset();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int getTextLength() {
+        checkCharacters();
+        try {
+            return jsonParser.getTextLength();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void checkCharacters() {
+        if (eventType != CHARACTERS) {
+            throw new IllegalStateException("Current event is not CHARACTERS");
+        }
+    }
+
+    public String getEncoding() {
+        return null;
+    }
+
+    public boolean hasText() {
+        return eventType == CHARACTERS;
+    }
+
+    private boolean scalarHasText() throws IOException {
+        return jsonParser.getCurrentToken() != VALUE_NULL && jsonParser.getTextLength() > 0;
+    }
+
+    public Location getLocation() {
+        final JsonLocation location = jsonParser.getCurrentLocation();
+        return new Location() {
+            public int getLineNumber() {
+                return location != null ? location.getLineNr() : -1;
+            }
+
+            public int getColumnNumber() {
+                return location != null ? location.getColumnNr() : -1;
+            }
+
+            public int getCharacterOffset() {
+                return location != null ? (int) location.getCharOffset() : -1;
+            }
+
+            public String getPublicId() {
+                return null;
+            }
+
+            public String getSystemId() {
+                return null;
+            }
+        };
+    }
+
+    public QName getName() {
+        return new QName(namespaceUri, getLocalName());
+    }
+
+    public String getLocalName() {
+        if (eventType != START_ELEMENT && eventType != END_ELEMENT) {
+            throw new IllegalStateException("Current event is not START_ELEMENT or END_ELEMENT");
+        }
+        return localName;
+    }
+
+    public boolean hasName() {
+        return eventType == START_ELEMENT || eventType == END_ELEMENT;
+    }
+
+    public String getNamespaceURI() {
+        return hasName() ? namespaceUri : null;
+    }
+
+    public String getPrefix() {
+        return hasName() ? XMLConstants.DEFAULT_NS_PREFIX : null;
+    }
+
+    public String getVersion() {
+        return null;
+    }
+
+    public boolean isStandalone() {
+        return false;
+    }
+
+    public boolean standaloneSet() {
+        return false;
+    }
+
+    public String getCharacterEncodingScheme() {
+        return null;
+    }
+
+    public String getPITarget() {
+        return null;
+    }
+
+    public String getPIData() {
+        return null;
+    }
+}
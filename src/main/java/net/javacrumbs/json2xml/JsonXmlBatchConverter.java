@@ -0,0 +1,251 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.xml.sax.SAXException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Converts newline delimited JSON (one JSON document per line) to XML in parallel. Records are converted
+ * in batches on the executor by {@link JsonXmlWriter}, results are passed to the consumer in the input order
+ * on the calling thread.
+ * <pre>
+ *	JsonXmlWriter jsonXmlWriter = new JsonXmlWriter(namespace, addTypeAttributes, "record");
+ *	new JsonXmlBatchConverter(jsonXmlWriter, executor).convert(reader, (recordNumber, xml) -> ...);
+ * </pre>
+ * Only a limited number of batches is converted ahead of the consumer, so memory consumption does not depend on the
+ * size of the input. Records that are not JSON objects with a single field need an artificial root name set
+ * on the writer. Empty lines are skipped. Instances are immutable and can be shared between threads,
+ * the executor is not shut down by the converter.
+ */
+public class JsonXmlBatchConverter {
+
+    /**
+     * Default number of records converted by one task.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 128;
+
+    private final JsonXmlWriter jsonXmlWriter;
+
+    private final ExecutorService executor;
+
+    private final int batchSize;
+
+    private final int maxPendingBatches;
+
+    /**
+     * Consumer of the converted records.
+     */
+    public interface RecordConsumer {
+        /**
+         * @param recordNumber zero based number of the record, empty lines are not counted
+         * @param xml XML document converted from the record
+         */
+        void accept(long recordNumber, String xml) throws IOException;
+    }
+
+    /**
+     * Creates converter that uses the common ForkJoinPool.
+     * @param jsonXmlWriter writer used to convert the records
+     */
+    public JsonXmlBatchConverter(JsonXmlWriter jsonXmlWriter) {
+        this(jsonXmlWriter, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates JsonXmlBatchConverter
+     * @param jsonXmlWriter writer used to convert the records
+     * @param executor executor the records are converted on, e.g. a ForkJoinPool or a virtual thread executor
+     */
+    public JsonXmlBatchConverter(JsonXmlWriter jsonXmlWriter, ExecutorService executor) {
+        this(jsonXmlWriter, executor, DEFAULT_BATCH_SIZE, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * Creates JsonXmlBatchConverter
+     * @param jsonXmlWriter writer used to convert the records
+     * @param executor executor the records are converted on, e.g. a ForkJoinPool or a virtual thread executor
+     * @param batchSize number of records converted by one task
+     * @param maxPendingBatches maximal number of batches submitted to the executor and not consumed yet
+     */
+    public JsonXmlBatchConverter(JsonXmlWriter jsonXmlWriter, ExecutorService executor, int batchSize, int maxPendingBatches) {
+        if (jsonXmlWriter == null || executor == null) {
+            throw new IllegalArgumentException("JsonXmlWriter and executor can not be null");
+        }
+        if (batchSize <= 0 || maxPendingBatches <= 0) {
+            throw new IllegalArgumentException("Batch size and max pending batches have to be positive");
+        }
+        this.jsonXmlWriter = jsonXmlWriter;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.maxPendingBatches = maxPendingBatches;
+    }
+
+    /**
+     * Converts each record to a separate XML document.
+     * @param input newline delimited JSON, not closed
+     * @param consumer called with the XML documents in the input order
+     * @return number of converted records
+     */
+    public long convert(Reader input, RecordConsumer consumer) throws IOException, ParserException {
+        return convert(input, consumer, false);
+    }
+
+    /**
+     * Converts all records into one XML document, wraps them into a root element in the namespace of the writer.
+     * @param input newline delimited JSON, not closed
+     * @param output target of the XML, flushed but not closed
+     * @param rootName name of the element that wraps the records
+     * @return number of converted records
+     */
+    public long convertMerged(Reader input, Writer output, String rootName) throws IOException, ParserException {
+        String namespaceUri = jsonXmlWriter.getNamespaceUri();
+        XmlSerializer serializer = new XmlSerializer(output);
+        try {
+            serializer.startDocument();
+            serializer.startElement(namespaceUri, rootName, rootName, TypeAttributes.EMPTY);
+            long records = convert(input, (recordNumber, xml) -> {
+                try {
+                    serializer.writeRaw(xml);
+                } catch (SAXException e) {
+                    throw toIOException(e);
+                }
+            }, true);
+            serializer.endElement(namespaceUri, rootName, rootName);
+            serializer.endDocument();
+            return records;
+        } catch (SAXException e) {
+            throw toIOException(e);
+        }
+    }
+
+    private long convert(Reader input, RecordConsumer consumer, boolean fragments) throws IOException {
+        BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+        Deque<Future<Batch>> pending = new ArrayDeque<>();
+        long records = 0;
+        try {
+            List<String> lines = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (isBlank(line)) {
+                    continue;
+                }
+                lines.add(line);
+                if (lines.size() == batchSize) {
+                    pending.add(submit(records, lines, fragments));
+                    records += lines.size();
+                    lines = new ArrayList<>(batchSize);
+                    if (pending.size() >= maxPendingBatches) {
+                        consume(pending.poll(), consumer);
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                pending.add(submit(records, lines, fragments));
+                records += lines.size();
+            }
+            while (!pending.isEmpty()) {
+                consume(pending.poll(), consumer);
+            }
+            return records;
+        } finally {
+            for (Future<Batch> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private Future<Batch> submit(final long firstRecord, final List<String> lines, final boolean fragments) {
+        final String namespaceUri = jsonXmlWriter.getNamespaceUri();
+        return executor.submit(() -> {
+            String[] xml = new String[lines.size()];
+            StringWriter writer = new StringWriter();
+            for (int i = 0; i < xml.length; i++) {
+                try {
+                    if (fragments) {
+                        jsonXmlWriter.writeFragment(lines.get(i), writer, namespaceUri);
+                    } else {
+                        jsonXmlWriter.write(lines.get(i), writer);
+                    }
+                } catch (ParserException e) {
+                    throw new ParserException("Error in record " + (firstRecord + i) + ": " + e.getMessage(), e);
+                }
+                xml[i] = writer.toString();
+                writer.getBuffer().setLength(0);
+            }
+            return new Batch(firstRecord, xml);
+        });
+    }
+
+    private static void consume(Future<Batch> future, RecordConsumer consumer) throws IOException {
+        Batch batch;
+        try {
+            batch = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for conversion");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ParserException(cause);
+        }
+        for (int i = 0; i < batch.xml.length; i++) {
+            consumer.accept(batch.firstRecord + i, batch.xml[i]);
+        }
+    }
+
+    private static boolean isBlank(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (!Character.isWhitespace(line.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static IOException toIOException(SAXException e) {
+        return e.getException() instanceof IOException ? (IOException) e.getException() : new IOException(e);
+    }
+
+    private static final class Batch {
+        private final long firstRecord;
+        private final String[] xml;
+
+        private Batch(long firstRecord, String[] xml) {
+            this.firstRecord = firstRecord;
+            this.xml = xml;
+        }
+    }
+}
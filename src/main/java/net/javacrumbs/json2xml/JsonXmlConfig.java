@@ -0,0 +1,235 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.xml.sax.ContentHandler;
+
+/**
+ * Settings of JSON to XML conversion. The settings are validated once, when the configuration is built, and
+ * the configuration is then shared by all conversions.
+ * <pre>
+ *	JsonXmlConfig config = JsonXmlConfig.builder()
+ *		.namespaceUri("http://javacrumbs.net/test")
+ *		.addTypeAttributes(true)
+ *		.elementNameConverter(new CachingElementNameConverter(converter, 10000))
+ *		.build();
+ *	// for each request
+ *	config.createAdapter(jsonParser, contentHandler).parse();
+ * </pre>
+ * Instances are immutable and can be shared between threads. {@link JsonXmlReader}, {@link JsonXmlWriter} and the
+ * adapters created from a configuration only copy references to its settings, so they are cheap to create per request.
+ */
+public final class JsonXmlConfig {
+
+    /**
+     * Configuration with default settings.
+     */
+    public static final JsonXmlConfig DEFAULT = builder().build();
+
+    private final String namespaceUri;
+    private final boolean addTypeAttributes;
+    private final String artificialRootName;
+    private final ElementNameConverter elementNameConverter;
+    private final int maxDepth;
+    private final JsonFactory jsonFactory;
+    private final JsonPathFilter pathFilter;
+    private final ConversionPlan plan;
+
+    private JsonXmlConfig(Builder builder) {
+        if (builder.jsonFactory == null) {
+            throw new IllegalArgumentException("JsonFactory can not be null");
+        }
+        if (builder.maxDepth <= 0) {
+            throw new IllegalArgumentException("Max depth has to be positive, was " + builder.maxDepth);
+        }
+        if (builder.plan != null && builder.plan.getElementNameConverter() != builder.elementNameConverter) {
+            throw new IllegalArgumentException("ConversionPlan has to be compiled with the same ElementNameConverter");
+        }
+        this.namespaceUri = builder.namespaceUri;
+        this.addTypeAttributes = builder.addTypeAttributes;
+        this.artificialRootName = builder.artificialRootName;
+        this.elementNameConverter = builder.elementNameConverter;
+        this.maxDepth = builder.maxDepth;
+        this.jsonFactory = builder.jsonFactory;
+        this.pathFilter = builder.pathFilter;
+        this.plan = builder.plan;
+    }
+
+    /**
+     * Creates builder with default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates builder with settings of this configuration.
+     */
+    public Builder toBuilder() {
+        return new Builder()
+            .namespaceUri(namespaceUri)
+            .addTypeAttributes(addTypeAttributes)
+            .artificialRootName(artificialRootName)
+            .elementNameConverter(elementNameConverter)
+            .maxDepth(maxDepth)
+            .jsonFactory(jsonFactory)
+            .pathFilter(pathFilter)
+            .plan(plan);
+    }
+
+    /**
+     * Creates adapter converting one JSON document to SAX events.
+     * @param jsonParser parsed JSON
+     * @param contentHandler target of SAX events
+     */
+    public JsonSaxAdapter createAdapter(JsonParser jsonParser, ContentHandler contentHandler) {
+        return new JsonSaxAdapter(jsonParser, contentHandler, this);
+    }
+
+    /**
+     * Creates adapter converting one JSON document fed in chunks to SAX events.
+     * @param contentHandler target of SAX events
+     */
+    public JsonSaxAsyncAdapter createAsyncAdapter(ContentHandler contentHandler) {
+        return new JsonSaxAsyncAdapter(contentHandler, this);
+    }
+
+    /**
+     * Creates session converting successive documents on one thread, with its buffers reused.
+     */
+    public JsonXmlSession createSession() {
+        return new JsonXmlSession(this);
+    }
+
+    public String getNamespaceUri() {
+        return namespaceUri;
+    }
+
+    public boolean isAddTypeAttributes() {
+        return addTypeAttributes;
+    }
+
+    public String getArtificialRootName() {
+        return artificialRootName;
+    }
+
+    public ElementNameConverter getElementNameConverter() {
+        return elementNameConverter;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public JsonFactory getJsonFactory() {
+        return jsonFactory;
+    }
+
+    public JsonPathFilter getPathFilter() {
+        return pathFilter;
+    }
+
+    public ConversionPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Builder of {@link JsonXmlConfig}. Builders are not thread safe.
+     */
+    public static final class Builder {
+        private String namespaceUri = "";
+        private boolean addTypeAttributes;
+        private String artificialRootName;
+        private ElementNameConverter elementNameConverter;
+        private int maxDepth = JsonSaxAdapter.DEFAULT_MAX_DEPTH;
+        private JsonFactory jsonFactory = JsonSaxAdapter.JSON_FACTORY;
+        private JsonPathFilter pathFilter;
+        private ConversionPlan plan;
+
+        private Builder() {
+        }
+
+        /**
+         * @param namespaceUri namespace uri of the resulting XML.
+         */
+        public Builder namespaceUri(String namespaceUri) {
+            this.namespaceUri = namespaceUri;
+            return this;
+        }
+
+        /**
+         * @param addTypeAttributes if true adds attributes with type info
+         */
+        public Builder addTypeAttributes(boolean addTypeAttributes) {
+            this.addTypeAttributes = addTypeAttributes;
+            return this;
+        }
+
+        /**
+         * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+         */
+        public Builder artificialRootName(String artificialRootName) {
+            this.artificialRootName = artificialRootName;
+            return this;
+        }
+
+        /**
+         * @param elementNameConverter converter to convert JSON object names to valid XML element names
+         */
+        public Builder elementNameConverter(ElementNameConverter elementNameConverter) {
+            this.elementNameConverter = elementNameConverter;
+            return this;
+        }
+
+        /**
+         * @param maxDepth maximal nesting of JSON objects and arrays, deeper documents are rejected
+         */
+        public Builder maxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        /**
+         * @param jsonFactory factory used to create JSON parsers. It should be shared, so Jackson can reuse its buffers and field name tables.
+         */
+        public Builder jsonFactory(JsonFactory jsonFactory) {
+            this.jsonFactory = jsonFactory;
+            return this;
+        }
+
+        /**
+         * @param pathFilter selects the parts of JSON to convert, null to convert everything
+         */
+        public Builder pathFilter(JsonPathFilter pathFilter) {
+            this.pathFilter = pathFilter;
+            return this;
+        }
+
+        /**
+         * @param plan precompiled names of known fields, compiled with the same elementNameConverter, can be null
+         */
+        public Builder plan(ConversionPlan plan) {
+            this.plan = plan;
+            return this;
+        }
+
+        public JsonXmlConfig build() {
+            return new JsonXmlConfig(this);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Converts JSON file (UTF-8) to XML file. The source is memory mapped region by region and parsed directly from
+ * the mapped memory by Jackson non-blocking parser, the XML is written to the target channel through a large
+ * direct buffer. So the JSON is not copied to the heap and the memory consumption does not depend on the size of
+ * the file.
+ * <pre>
+ *	new JsonXmlFileConverter(new JsonXmlWriter(namespace, addTypeAttributes))
+ *		.convert(source, target, (bytesRead, totalBytes) -&gt; log.info("{}%", 100 * bytesRead / totalBytes));
+ * </pre>
+ * Produces the same XML as {@link JsonXmlWriter}. Instances are immutable and can be shared between threads.
+ */
+public class JsonXmlFileConverter {
+
+    /**
+     * Receives progress of the conversion.
+     */
+    public interface ProgressListener {
+        /**
+         * Called each time a part of the source has been converted.
+         * @param bytesRead number of bytes of the source converted so far
+         * @param totalBytes size of the source
+         */
+        void progress(long bytesRead, long totalBytes);
+    }
+
+    /**
+     * Default size of mapped regions of the source.
+     */
+    public static final int DEFAULT_REGION_SIZE = 1 << 28;
+
+    /**
+     * Bytes parsed between progress reports.
+     */
+    private static final int PROGRESS_STEP = 1 << 20;
+
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+
+    private final JsonXmlWriter jsonXmlWriter;
+
+    private final int regionSize;
+
+    /**
+     * Creates JsonXmlFileConverter
+     * @param jsonXmlWriter conversion settings
+     */
+    public JsonXmlFileConverter(JsonXmlWriter jsonXmlWriter) {
+        this(jsonXmlWriter, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Creates JsonXmlFileConverter
+     * @param jsonXmlWriter conversion settings
+     * @param regionSize size of regions of the source that are mapped at once
+     */
+    public JsonXmlFileConverter(JsonXmlWriter jsonXmlWriter, int regionSize) {
+        if (jsonXmlWriter == null) {
+            throw new IllegalArgumentException("JsonXmlWriter can not be null");
+        }
+        if (regionSize <= 0) {
+            throw new IllegalArgumentException("Region size has to be positive, was " + regionSize);
+        }
+        this.jsonXmlWriter = jsonXmlWriter;
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * Converts JSON file to XML file. The target is created or overwritten.
+     * @param source JSON file
+     * @param target XML file
+     */
+    public void convert(Path source, Path target) throws IOException, ParserException {
+        convert(source, target, null);
+    }
+
+    /**
+     * Converts JSON file to XML file. The target is created or overwritten.
+     * @param source JSON file
+     * @param target XML file
+     * @param progressListener receives progress of the conversion, can be null
+     */
+    public void convert(Path source, Path target, ProgressListener progressListener) throws IOException, ParserException {
+        try (FileChannel input = FileChannel.open(source, READ);
+             FileChannel output = FileChannel.open(target, CREATE, TRUNCATE_EXISTING, WRITE);
+             JsonParser jsonParser = jsonXmlWriter.getJsonFactory().createNonBlockingByteBufferParser()) {
+            ChannelOutputStream outputStream = new ChannelOutputStream(output);
+            JsonSaxAdapter adapter = jsonXmlWriter.createAdapter(jsonParser, new XmlSerializer(outputStream));
+            ByteBufferFeeder feeder = (ByteBufferFeeder) jsonParser.getNonBlockingInputFeeder();
+            long size = input.size();
+            boolean finished = false;
+            for (long regionStart = 0; regionStart < size && !finished; regionStart += regionSize) {
+                ByteBuffer region = input.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(regionSize, size - regionStart));
+                while (region.hasRemaining() && !finished) {
+                    // the parser reads the mapped memory directly, the slice only limits how much is parsed at once
+                    // Buffer casts keep the calls binary compatible with Java 8, which lacks the covariant overrides
+                    ByteBuffer part = region.slice();
+                    ((Buffer) part).limit(Math.min(PROGRESS_STEP, part.remaining()));
+                    ((Buffer) region).position(region.position() + part.limit());
+                    feeder.feedInput(part);
+                    finished = adapter.parseAvailable();
+                    if (progressListener != null) {
+                        progressListener.progress(regionStart + region.position(), size);
+                    }
+                }
+            }
+            if (!finished) {
+                feeder.endOfInput();
+                adapter.parseAvailable();
+            }
+            outputStream.flush();
+        }
+    }
+
+    /**
+     * Writes to the channel through a direct buffer, so the channel does not copy the data to a temporary one.
+     */
+    private static class ChannelOutputStream extends OutputStream {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE);
+
+        ChannelOutputStream(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int count = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, count);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            ((Buffer) buffer).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            ((Buffer) buffer).clear();
+        }
+    }
+}
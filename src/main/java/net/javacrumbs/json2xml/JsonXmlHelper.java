@@ -17,22 +17,32 @@ package net.javacrumbs.json2xml;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteConstraints;
+import com.fasterxml.jackson.core.io.CharacterEscapes;
 import java.io.IOException;
-import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.math.BigDecimal;
-import javax.xml.transform.Transformer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMResult;
-import javax.xml.transform.sax.SAXSource;
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
-import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * Helper class that can be used for JSON -> XML and XML -> JSON transformation.
@@ -54,6 +64,20 @@ public class JsonXmlHelper {
         STRING, INT, FLOAT, BOOLEAN, NULL, ARRAY, OBJECT
     }
 
+    private static final int ARRAY_TYPE = TYPE.ARRAY.ordinal();
+
+    /**
+     * Default minimal number of children of an object or an array to be converted in parallel.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1024;
+
+    /**
+     * Factory of generators of chunks converted in parallel. The depth is limited by maxDepth parameter.
+     */
+    private static final JsonFactory CHUNK_FACTORY = JsonFactory.builder()
+            .streamWriteConstraints(StreamWriteConstraints.builder().maxNestingDepth(Integer.MAX_VALUE).build())
+            .build();
+
     /**
      * Helper method to convert JSON string to XML DOM
      *
@@ -63,13 +87,31 @@ public class JsonXmlHelper {
      * @param artificialRootName Name of the artificial root element node
      * @return Document DOM node.
      * @throws javax.xml.transform.TransformerConfigurationException
+     * @throws TransformerException if the JSON is invalid or can not be converted to XML
      */
     public static Node convertToDom(final String json, final String namespace, final boolean addTypeAttributes, final String artificialRootName) throws TransformerConfigurationException, TransformerException {
-        Transformer transformer = TransformerFactory.newInstance().newTransformer();
-        InputSource source = new InputSource(new StringReader(json));
-        DOMResult result = new DOMResult();
-        transformer.transform(new SAXSource(new JsonXmlReader(namespace, addTypeAttributes, artificialRootName), source), result);
-        return result.getNode();
+        return convertToDom(json, JsonXmlConfig.builder()
+            .namespaceUri(namespace)
+            .addTypeAttributes(addTypeAttributes)
+            .artificialRootName(artificialRootName)
+            .build());
+    }
+
+    /**
+     * Helper method to convert JSON string to XML DOM
+     *
+     * @param json String containing the json document
+     * @param config conversion settings
+     * @return Document DOM node.
+     * @throws TransformerException if the JSON is invalid or can not be converted to XML
+     */
+    public static Node convertToDom(final String json, final JsonXmlConfig config) throws TransformerException {
+        try {
+            return new JsonDomBuilder(config).build(json);
+        } catch (ParserException e) {
+            // invalid JSON used to be reported by the Transformer
+            throw new TransformerException(e.getMessage(), e);
+        }
     }
 
     /**
@@ -82,7 +124,7 @@ public class JsonXmlHelper {
      * @throws IOException
      */
     public static String convertToJson(Node node) throws IOException {
-        try (StringWriter writer = new StringWriter(); JsonGenerator generator = new JsonFactory().createGenerator(writer)) {
+        try (StringWriter writer = new StringWriter(); JsonGenerator generator = JsonSaxAdapter.JSON_FACTORY.createGenerator(writer)) {
             convertToJson(node, generator, name -> name);
             return writer.toString();
         }
@@ -99,6 +141,63 @@ public class JsonXmlHelper {
      * @throws IOException
      */
     public static void convertToJson(Node node, JsonGenerator generator, ElementNameConverter converter) throws IOException {
+        convertToJson(node, generator, converter, JsonSaxAdapter.DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * More complete helper method to convert DOM node back to JSON.The node
+     * MUST have the "type" attributes (generated with addTypeAttributes flag
+     * set as true).This method allows to customize the JsonGenerator.
+     *
+     * @param node The DOM Node
+     * @param generator A configured JsonGenerator
+     * @param converter Converter to convert elements names from XML to JSON
+     * @param maxDepth maximal nesting of objects and arrays, deeper documents are rejected with {@link ParserException}
+     * @throws IOException
+     */
+    public static void convertToJson(Node node, JsonGenerator generator, ElementNameConverter converter, int maxDepth) throws IOException {
+        convertToJson(node, generator, converter, maxDepth, null);
+    }
+
+    /**
+     * Converts DOM node back to JSON in parallel. Objects and arrays with at least {@link #DEFAULT_PARALLEL_THRESHOLD}
+     * children are split to chunks, which are serialized by the pool and written to the generator in order.
+     *
+     * @param node The DOM Node
+     * @param generator A configured JsonGenerator
+     * @param converter Converter to convert elements names from XML to JSON
+     * @param maxDepth maximal nesting of objects and arrays, deeper documents are rejected with {@link ParserException}
+     * @param pool pool serializing the chunks, null for sequential conversion
+     * @throws IOException
+     * @see #convertToJson(Node, JsonGenerator, ElementNameConverter, int, ForkJoinPool, int)
+     */
+    public static void convertToJson(Node node, JsonGenerator generator, ElementNameConverter converter, int maxDepth, ForkJoinPool pool) throws IOException {
+        convertToJson(node, generator, converter, maxDepth, pool, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Converts DOM node back to JSON in parallel. Objects and arrays with at least parallelThreshold children are
+     * split to chunks of parallelThreshold children, which are serialized by the pool to separate buffers and then
+     * written to the generator in order. Smaller documents are converted sequentially.
+     * <p>
+     * The DOM is read by more threads at once, so it has to be safe for concurrent reading, e.g. created
+     * by {@link #convertToDom(String, String, boolean, String)} or by a DocumentBuilder with deferred node expansion
+     * switched off. The chunks are written with the features and character escapes of the generator. Generators with
+     * a pretty printer and lazy DOMs created by {@link JsonDomBuilder#buildLazy(String)} are converted sequentially.
+     *
+     * @param node The DOM Node
+     * @param generator A configured JsonGenerator
+     * @param converter Converter to convert elements names from XML to JSON
+     * @param maxDepth maximal nesting of objects and arrays, deeper documents are rejected with {@link ParserException}
+     * @param pool pool serializing the chunks, null for sequential conversion
+     * @param parallelThreshold minimal number of children of an object or an array to be converted in parallel
+     * @throws IOException
+     */
+    public static void convertToJson(Node node, JsonGenerator generator, ElementNameConverter converter, int maxDepth,
+                                     ForkJoinPool pool, int parallelThreshold) throws IOException {
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("Parallel threshold has to be positive, was " + parallelThreshold);
+        }
         Element element;
         if (node instanceof Document) {
             element = ((Document) node).getDocumentElement();
@@ -108,11 +207,12 @@ public class JsonXmlHelper {
             throw new IllegalArgumentException("Node must be either a Document or an Element");
         }
 
-        TYPE type = toTYPE(element.getAttribute("type"));
+        TYPE type = getType(element);
         switch (type) {
             case OBJECT:
             case ARRAY:
-                convertElement(generator, element, true, converter);
+                boolean parallel = pool != null && generator.getPrettyPrinter() == null && !(element.getOwnerDocument() instanceof LazyDocument);
+                convertElement(generator, element, converter, maxDepth, parallel ? new ParallelConversion(pool, parallelThreshold, generator) : null);
                 break;
             default:
                 throw new RuntimeException("invalid root type [" + type + "]");
@@ -120,77 +220,510 @@ public class JsonXmlHelper {
         generator.close();
     }
 
+    /**
+     * Simpler helper method to convert XML back to JSON without building a DOM. The XML MUST
+     * have the "type" attributes (generated with addTypeAttributes flag set as true).
+     *
+     * @param source XML source
+     * @return The JSON string
+     * @throws IOException
+     * @throws SAXException
+     */
+    public static String convertToJson(InputSource source) throws IOException, SAXException {
+        try (StringWriter writer = new StringWriter(); JsonGenerator generator = JsonSaxAdapter.JSON_FACTORY.createGenerator(writer)) {
+            convertToJson(source, generator, name -> name);
+            return writer.toString();
+        }
+    }
+
+    /**
+     * Streaming variant of {@link #convertToJson(Node, JsonGenerator, ElementNameConverter)}. XML is parsed
+     * by a SAX parser and written to the generator as it is read, so memory consumption does not depend on the
+     * size of the document. The XML MUST have the "type" attributes (generated with addTypeAttributes flag
+     * set as true).
+     *
+     * @param source XML source
+     * @param generator A configured JsonGenerator
+     * @param converter Converter to convert elements names from XML to JSON
+     * @throws IOException
+     * @throws SAXException
+     * @see JsonGeneratorContentHandler
+     */
+    public static void convertToJson(InputSource source, JsonGenerator generator, ElementNameConverter converter) throws IOException, SAXException {
+        parse(source, new JsonGeneratorContentHandler(generator, converter));
+        generator.close();
+    }
+
+    /**
+     * Streaming conversion of XML without type attributes. Arrays, objects and scalar types are inferred
+     * from repeated element names and from the text of the elements, shape hints make the result deterministic
+     * where the inference is ambiguous, e.g. for arrays with a single item. Type attributes are used if present.
+     *
+     * @param source XML source
+     * @param generator A configured JsonGenerator
+     * @param converter Converter to convert elements names from XML to JSON
+     * @param shapeHints types of elements by paths of XML names, e.g. "/order/items", can be null
+     * @throws IOException
+     * @throws SAXException
+     * @see TypeInferringContentHandler
+     */
+    public static void convertToJsonInferringTypes(InputSource source, JsonGenerator generator, ElementNameConverter converter,
+                                                   Map<String, TYPE> shapeHints) throws IOException, SAXException {
+        parse(source, new TypeInferringContentHandler(generator, converter, shapeHints));
+        generator.close();
+    }
+
+    private static void parse(InputSource source, DefaultHandler handler) throws IOException, SAXException {
+        SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+        parserFactory.setNamespaceAware(true);
+        try {
+            parserFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            parserFactory.newSAXParser().parse(source, handler);
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        }
+    }
+
     /**
      * Convert a DOM element to Json, with special handling for arrays since arrays don't exist in XML.
+     * The tree is walked iteratively, types of open objects and arrays are kept on an explicit stack,
+     * so deep documents do not consume the call stack.
      * @param generator
-     * @param element
-     * @param isArrayItem
-     * @throws IOException 
+     * @param root the element to convert, it is written as an array item (without field name)
+     * @param converter
+     * @param maxDepth maximal nesting of objects and arrays
+     * @param parallel settings of parallel conversion, null for sequential conversion
+     * @throws IOException
+     */
+    private static void convertElement(JsonGenerator generator, Element root, ElementNameConverter converter, int maxDepth,
+                                       ParallelConversion parallel) throws IOException {
+        // types of open objects and arrays
+        byte[] types = new byte[16];
+        int depth = 0;
+        Element element = root;
+        while (true) {
+            TYPE type = getType(element);
+            if (depth > 0 && types[depth - 1] != ARRAY_TYPE) {
+                generator.writeFieldName(converter.convertName(element.getTagName()));
+            }
+            Element completed = element;
+            switch (type) {
+                case OBJECT:
+                case ARRAY:
+                    // empty objects and arrays count too, same as in JsonSaxAdapter
+                    if (depth >= maxDepth) {
+                        throw new ParserException("Maximal depth " + maxDepth + " exceeded");
+                    }
+                    if (type == TYPE.OBJECT) {
+                        generator.writeStartObject();
+                    } else {
+                        generator.writeStartArray();
+                    }
+                    Element firstChild = firstChildElement(element);
+                    if (firstChild != null) {
+                        if (parallel == null || !parallel.isLarge(firstChild)) {
+                            if (depth == types.length) {
+                                byte[] newTypes = new byte[depth * 2];
+                                System.arraycopy(types, 0, newTypes, 0, depth);
+                                types = newTypes;
+                            }
+                            types[depth++] = (byte) type.ordinal();
+                            element = firstChild;
+                            continue;
+                        }
+                        parallel.writeChildren(generator, firstChild, type == TYPE.ARRAY, converter, maxDepth - depth - 1);
+                    }
+                    writeEnd(generator, type.ordinal());
+                    break;
+                default:
+                    writeValue(generator, type, element.getTextContent());
+                    break;
+            }
+            // go to the next sibling, closing all parents that have been completed
+            Node current = completed;
+            element = null;
+            while (current != root) {
+                element = nextSiblingElement(current);
+                if (element != null) {
+                    break;
+                }
+                current = current.getParentNode();
+                writeEnd(generator, types[--depth]);
+            }
+            if (element == null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Splits children of big objects and arrays to chunks that are serialized in parallel.
+     */
+    private static final class ParallelConversion {
+        private final ForkJoinPool pool;
+        private final int threshold;
+        private final int features;
+        private final CharacterEscapes characterEscapes;
+
+        ParallelConversion(ForkJoinPool pool, int threshold, JsonGenerator generator) {
+            this.pool = pool;
+            this.threshold = threshold;
+            this.features = generator.getFeatureMask();
+            this.characterEscapes = generator.getCharacterEscapes();
+        }
+
+        /**
+         * Returns true if the element has at least threshold siblings, including itself.
+         */
+        boolean isLarge(Element firstChild) {
+            int count = 0;
+            for (Element child = firstChild; child != null; child = nextSiblingElement(child)) {
+                if (++count >= threshold) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Writes children of an object or an array, the start and the end of the container are written by the caller.
+         */
+        void writeChildren(JsonGenerator generator, Element firstChild, boolean inArray, ElementNameConverter converter, int maxDepth) throws IOException {
+            List<ChunkTask> tasks = new ArrayList<>();
+            List<Element> chunk = new ArrayList<>(threshold);
+            for (Element child = firstChild; child != null; child = nextSiblingElement(child)) {
+                chunk.add(child);
+                if (chunk.size() == threshold) {
+                    tasks.add(new ChunkTask(this, chunk, inArray, converter, maxDepth));
+                    chunk = new ArrayList<>(threshold);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                tasks.add(new ChunkTask(this, chunk, inArray, converter, maxDepth));
+            }
+            if (ForkJoinTask.getPool() == pool) {
+                ForkJoinTask.invokeAll(tasks);
+            } else {
+                for (ChunkTask task : tasks) {
+                    pool.execute(task);
+                }
+            }
+            for (ChunkTask task : tasks) {
+                Chunk result;
+                try {
+                    result = task.join();
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                // names and values are written in the context of the generator, so it writes the separators and
+                // detects duplicate names
+                int start = 0;
+                for (int i = 0; i < result.ends.length; i++) {
+                    if (result.names != null) {
+                        generator.writeFieldName(result.names[i]);
+                    }
+                    generator.writeRawValue(result.json, start, result.ends[i] - start);
+                    start = result.ends[i];
+                }
+            }
+        }
+
+        JsonGenerator createGenerator(Writer writer) throws IOException {
+            JsonGenerator generator = CHUNK_FACTORY.createGenerator(writer);
+            generator.overrideStdFeatures(features, -1);
+            generator.setCharacterEscapes(characterEscapes);
+            // values are concatenated and split by their ends
+            generator.setRootValueSeparator(null);
+            return generator;
+        }
+    }
+
+    /**
+     * Serialized children of an object or an array.
+     */
+    private static final class Chunk {
+        private final String json;
+
+        /**
+         * Converted names of the children, null for items of an array.
+         */
+        private final String[] names;
+
+        /**
+         * Offsets of the ends of the values in json.
+         */
+        private final int[] ends;
+
+        Chunk(String json, String[] names, int[] ends) {
+            this.json = json;
+            this.names = names;
+            this.ends = ends;
+        }
+    }
+
+    /**
+     * Serializes a chunk of children of an object or an array, each value as a separate root value.
      */
-    private static void convertElement(JsonGenerator generator, Element element, boolean isArrayItem, ElementNameConverter converter) throws IOException {
-        TYPE type = toTYPE(element.getAttribute("type"));
-        String name = element.getTagName();
+    private static final class ChunkTask extends RecursiveTask<Chunk> {
+        private static final long serialVersionUID = -3867517290364731586L;
+
+        private final ParallelConversion parallel;
+        private final List<Element> children;
+        private final boolean inArray;
+        private final ElementNameConverter converter;
+        private final int maxDepth;
+
+        ChunkTask(ParallelConversion parallel, List<Element> children, boolean inArray, ElementNameConverter converter, int maxDepth) {
+            this.parallel = parallel;
+            this.children = children;
+            this.inArray = inArray;
+            this.converter = converter;
+            this.maxDepth = maxDepth;
+        }
 
-        if (!isArrayItem) {
-            generator.writeFieldName(converter.convertName(name));
+        @Override
+        protected Chunk compute() {
+            StringWriter writer = new StringWriter();
+            String[] names = inArray ? null : new String[children.size()];
+            int[] ends = new int[children.size()];
+            try (JsonGenerator generator = parallel.createGenerator(writer)) {
+                for (int i = 0; i < children.size(); i++) {
+                    Element child = children.get(i);
+                    if (names != null) {
+                        names[i] = converter.convertName(child.getTagName());
+                    }
+                    convertElement(generator, child, converter, maxDepth, parallel);
+                    generator.flush();
+                    ends[i] = writer.getBuffer().length();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new Chunk(writer.toString(), names, ends);
         }
+    }
 
+    private static void writeEnd(JsonGenerator generator, int type) throws IOException {
+        if (type == ARRAY_TYPE) {
+            generator.writeEndArray();
+        } else {
+            generator.writeEndObject();
+        }
+    }
+
+    private static Element firstChildElement(Node node) {
+        Node child = node.getFirstChild();
+        while (child != null && child.getNodeType() != Node.ELEMENT_NODE) {
+            child = child.getNextSibling();
+        }
+        return (Element) child;
+    }
+
+    private static Element nextSiblingElement(Node node) {
+        Node sibling = node.getNextSibling();
+        while (sibling != null && sibling.getNodeType() != Node.ELEMENT_NODE) {
+            sibling = sibling.getNextSibling();
+        }
+        return (Element) sibling;
+    }
+
+    /**
+     * Writes scalar value of given type.
+     * @param generator
+     * @param type scalar type
+     * @param text text content of the element
+     * @throws IOException
+     */
+    static void writeValue(JsonGenerator generator, TYPE type, String text) throws IOException {
         switch (type) {
-            case OBJECT:
-                generator.writeStartObject();
-                convertChildren(generator, element, false, converter);
-                generator.writeEndObject();
-                break;
-            case ARRAY:
-                generator.writeStartArray();
-                convertChildren(generator, element, true, converter);
-                generator.writeEndArray();
-                break;
             case STRING:
-                generator.writeString(element.getTextContent());
+                generator.writeString(text);
                 break;
             case INT:
+                writeInt(generator, text);
+                break;
             case FLOAT:
-                generator.writeNumber(new BigDecimal(element.getTextContent()));
+                if (isJsonNumber(text)) {
+                    // already a valid JSON number, written as is. Negative zero loses its sign, same as with BigDecimal
+                    generator.writeNumber(isNegativeZero(text) ? text.substring(1) : text);
+                } else {
+                    generator.writeNumber(new BigDecimal(text));
+                }
                 break;
             case BOOLEAN:
-                generator.writeBoolean(Boolean.parseBoolean(element.getTextContent()));
+                generator.writeBoolean(Boolean.parseBoolean(text));
                 break;
             case NULL:
                 generator.writeNull();
                 break;
+            default:
+                throw new IllegalArgumentException("Not a scalar type " + type);
         }
     }
 
     /**
-     * Method to recurse within children elements and convert them to JSON too.
-     * @param generator
-     * @param element
-     * @param isArray
-     * @throws IOException
+     * Writes integer. Integers with up to 18 digits always fit in long, so they are parsed without allocation,
+     * longer or invalid ones are parsed by BigDecimal.
      */
-    private static void convertChildren(JsonGenerator generator, Element element, boolean isArray, ElementNameConverter converter) throws IOException {
-        NodeList list = element.getChildNodes();
-        int len = list.getLength();
-        for (int i = 0; i < len; i++) {
-            Node node = list.item(i);
-            if (node.getNodeType() == Node.ELEMENT_NODE) {
-                convertElement(generator, (Element) node, isArray, converter);
+    private static void writeInt(JsonGenerator generator, String text) throws IOException {
+        int length = text.length();
+        int start = length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+') ? 1 : 0;
+        if (start < length && length - start <= 18) {
+            long value = 0;
+            int i = start;
+            while (i < length) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                value = value * 10 + (c - '0');
+                i++;
+            }
+            if (i == length) {
+                generator.writeNumber(text.charAt(0) == '-' ? -value : value);
+                return;
             }
         }
+        generator.writeNumber(new BigDecimal(text));
     }
 
     /**
-     * Convert type attribute value to TYPE enum (no attribute = OBJECT)
+     * Returns true if the text is a number according to JSON grammar.
+     */
+    static boolean isJsonNumber(String text) {
+        int length = text.length();
+        int i = 0;
+        if (i < length && text.charAt(i) == '-') {
+            i++;
+        }
+        if (i < length && text.charAt(i) == '0') {
+            i++;
+        } else {
+            int digits = skipDigits(text, i);
+            if (digits == i) {
+                return false;
+            }
+            i = digits;
+        }
+        if (i < length && text.charAt(i) == '.') {
+            int digits = skipDigits(text, i + 1);
+            if (digits == i + 1) {
+                return false;
+            }
+            i = digits;
+        }
+        if (i < length && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+                i++;
+            }
+            int digits = skipDigits(text, i);
+            if (digits == i) {
+                return false;
+            }
+            i = digits;
+        }
+        return i == length;
+    }
+
+    /**
+     * Returns true if the JSON number is zero with minus sign, like "-0.0" or "-0e5".
+     */
+    private static boolean isNegativeZero(String text) {
+        if (text.charAt(0) != '-') {
+            return false;
+        }
+        for (int i = 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == 'e' || c == 'E') {
+                break;
+            }
+            if (c != '0' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipDigits(String text, int i) {
+        while (i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Convert type attribute value to TYPE enum (no attribute = OBJECT). The names are case insensitive, they are
+     * compared in place, so no Strings are created.
      *
      * @param type The type as a string
-     * @return
+     * @return the type or null if the type is unknown
      */
-    private static TYPE toTYPE(String type) {
-        if (null == type || type.trim().isEmpty()) {
+    static TYPE toTYPE(String type) {
+        if (type == null) {
             return TYPE.OBJECT;
-        } else {
-            return TYPE.valueOf(type.toUpperCase());
         }
+        switch (type.length()) {
+            case 0:
+                return TYPE.OBJECT;
+            case 3:
+                return matches(type, "int") ? TYPE.INT : blankToObject(type);
+            case 4:
+                return matches(type, "null") ? TYPE.NULL : blankToObject(type);
+            case 5:
+                if (matches(type, "float")) {
+                    return TYPE.FLOAT;
+                }
+                return matches(type, "array") ? TYPE.ARRAY : blankToObject(type);
+            case 6:
+                if (matches(type, "string")) {
+                    return TYPE.STRING;
+                }
+                return matches(type, "object") ? TYPE.OBJECT : blankToObject(type);
+            case 7:
+                return matches(type, "boolean") ? TYPE.BOOLEAN : blankToObject(type);
+            default:
+                return blankToObject(type);
+        }
+    }
+
+    private static boolean matches(String type, String name) {
+        return type.regionMatches(true, 0, name, 0, name.length());
+    }
+
+    /**
+     * Blank type is treated as missing.
+     */
+    private static TYPE blankToObject(String type) {
+        for (int i = 0; i < type.length(); i++) {
+            if (type.charAt(i) > ' ') {
+                return null;
+            }
+        }
+        return TYPE.OBJECT;
+    }
+
+    /**
+     * Returns type of the element.
+     * @throws ParserException if the type is unknown
+     */
+    private static TYPE getType(Element element) {
+        String value = element.getAttribute("type");
+        TYPE type = toTYPE(value);
+        if (type == null) {
+            throw new ParserException("Unknown type [" + value + "] of element " + getPath(element));
+        }
+        return type;
+    }
+
+    /**
+     * Returns path of the element, e.g. /root/a/b.
+     */
+    private static String getPath(Element element) {
+        StringBuilder path = new StringBuilder();
+        for (Node node = element; node instanceof Element; node = node.getParentNode()) {
+            path.insert(0, ((Element) node).getTagName()).insert(0, '/');
+        }
+        return path.toString();
     }
 }
@@ -0,0 +1,258 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reactive Streams processor converting a stream of JSON byte chunks to a stream of XML byte chunks (UTF-8).
+ * The conversion is incremental, see {@link JsonSaxAsyncAdapter}. The next JSON chunk is requested only when
+ * the subscriber has demand and all the XML converted so far has been delivered, so a slow subscriber
+ * throttles the publisher and at most a chunk or two are kept in memory.
+ * <pre>
+ *	JsonXmlProcessor processor = new JsonXmlProcessor(new JsonXmlWriter(namespace, addTypeAttributes));
+ *	jsonPublisher.subscribe(processor);
+ *	processor.subscribe(xmlSubscriber);
+ * </pre>
+ * Requires org.reactivestreams:reactive-streams on the classpath, use {@code org.reactivestreams.FlowAdapters}
+ * to connect it to {@code java.util.concurrent.Flow}. A processor converts a single document and accepts
+ * a single subscriber. The received chunks are not retained, the published chunks are not shared.
+ */
+public class JsonXmlProcessor implements Processor<ByteBuffer, ByteBuffer> {
+
+    private final ChunkOutputStream output = new ChunkOutputStream();
+
+    private final XmlSerializer serializer = new XmlSerializer(output);
+
+    private final JsonSaxAsyncAdapter adapter;
+
+    /**
+     * Converted XML waiting for demand.
+     */
+    private final Queue<ByteBuffer> chunks = new ConcurrentLinkedQueue<>();
+
+    private final AtomicReference<Subscriber<? super ByteBuffer>> subscriber = new AtomicReference<>();
+
+    private final AtomicLong requested = new AtomicLong();
+
+    /**
+     * Serializes the delivery, only the thread that increments it from zero drains.
+     */
+    private final AtomicInteger drains = new AtomicInteger();
+
+    private volatile Subscription upstream;
+
+    private volatile boolean inputRequested;
+
+    private volatile boolean done;
+
+    private volatile Throwable error;
+
+    private volatile boolean cancelled;
+
+    private boolean terminated;
+
+    /**
+     * Creates JsonXmlProcessor with the default conversion settings.
+     */
+    public JsonXmlProcessor() {
+        this(new JsonXmlWriter());
+    }
+
+    /**
+     * Creates JsonXmlProcessor
+     * @param jsonXmlWriter conversion settings
+     */
+    public JsonXmlProcessor(JsonXmlWriter jsonXmlWriter) {
+        this.adapter = jsonXmlWriter.createAsyncAdapter(serializer);
+    }
+
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        if (!this.subscriber.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Subscription() {
+                public void request(long n) {
+                }
+
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("JsonXmlProcessor supports only one subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new Subscription() {
+            public void request(long n) {
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("Requested number of chunks has to be positive, was " + n));
+                } else {
+                    requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+                }
+                drain();
+            }
+
+            public void cancel() {
+                cancelled = true;
+                cancelUpstream();
+                drain();
+            }
+        });
+        drain();
+    }
+
+    public void onSubscribe(Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        if (cancelled || done) {
+            subscription.cancel();
+        }
+        drain();
+    }
+
+    public void onNext(ByteBuffer chunk) {
+        inputRequested = false;
+        if (done || cancelled) {
+            return;
+        }
+        try {
+            adapter.feed(chunk);
+            emitOutput();
+        } catch (ParserException e) {
+            fail(e);
+        }
+        drain();
+    }
+
+    public void onError(Throwable throwable) {
+        if (!done) {
+            error = throwable;
+            done = true;
+        }
+        drain();
+    }
+
+    public void onComplete() {
+        if (!done) {
+            try {
+                adapter.endOfInput();
+                emitOutput();
+                done = true;
+            } catch (ParserException e) {
+                fail(e);
+            }
+        }
+        drain();
+    }
+
+    private void fail(Throwable throwable) {
+        if (!done) {
+            error = throwable;
+            done = true;
+            cancelUpstream();
+        }
+    }
+
+    private void cancelUpstream() {
+        Subscription subscription = upstream;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private void emitOutput() {
+        try {
+            serializer.flush();
+        } catch (SAXException e) {
+            throw new ParserException("Serialization error: " + e.getMessage(), e);
+        }
+        if (output.size() > 0) {
+            chunks.add(output.takeChunk());
+        }
+    }
+
+    /**
+     * Delivers converted chunks as long as there is demand and requests more input when everything has been delivered.
+     */
+    private void drain() {
+        if (drains.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Subscriber<? super ByteBuffer> s = subscriber.get();
+            if (s != null && !terminated) {
+                drain(s);
+            }
+            missed = drains.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drain(Subscriber<? super ByteBuffer> s) {
+        // done has to be read first, the error and the last chunk are set before it
+        boolean completed = done;
+        if (cancelled) {
+            terminated = true;
+            chunks.clear();
+            return;
+        }
+        if (error != null) {
+            terminated = true;
+            chunks.clear();
+            s.onError(error);
+            return;
+        }
+        long demand = requested.get();
+        long delivered = 0;
+        ByteBuffer chunk;
+        while (delivered != demand && (chunk = chunks.poll()) != null) {
+            s.onNext(chunk);
+            delivered++;
+        }
+        if (delivered != 0 && demand != Long.MAX_VALUE) {
+            demand = requested.addAndGet(-delivered);
+        }
+        if (chunks.isEmpty()) {
+            if (completed) {
+                terminated = true;
+                s.onComplete();
+            } else if (demand > 0 && !inputRequested && upstream != null) {
+                inputRequested = true;
+                upstream.request(1);
+            }
+        }
+    }
+
+    private static class ChunkOutputStream extends ByteArrayOutputStream {
+        ByteBuffer takeChunk() {
+            ByteBuffer chunk = ByteBuffer.wrap(toByteArray());
+            reset();
+            return chunk;
+        }
+    }
+}
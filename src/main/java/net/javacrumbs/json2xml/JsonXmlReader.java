@@ -27,7 +27,16 @@ import org.xml.sax.SAXNotRecognizedException;
 import org.xml.sax.SAXNotSupportedException;
 import org.xml.sax.XMLReader;
 
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
 
 /**
  * Helper class that can be used for JSON -> XML transformation.
@@ -41,10 +50,7 @@ import java.io.IOException;
 public class JsonXmlReader implements XMLReader {
 
     private ContentHandler contentHandler;
-    private final String namespaceUri;
-    private final boolean addTypeAttributes;
-    private final String artificialRootName;
-    private final ElementNameConverter elementNameConverter;
+    private final JsonXmlConfig config;
 
 
     /**
@@ -89,11 +95,51 @@ public class JsonXmlReader implements XMLReader {
      * @param elementNameConverter converter to convert JSON object names to valid XML element names
      */
     public JsonXmlReader(String namespaceUri, boolean addTypeAttributes, String artificialRootName, ElementNameConverter elementNameConverter) {
-    	this.namespaceUri = namespaceUri;
-		this.addTypeAttributes = addTypeAttributes;
-        this.artificialRootName = artificialRootName;
-        this.elementNameConverter = elementNameConverter;
-	}
+        this(namespaceUri, addTypeAttributes, artificialRootName, elementNameConverter, JsonSaxAdapter.DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Creates JsonXmlReader
+     * @param namespaceUri namespace uri of the resulting XML.
+     * @param addTypeAttributes if true adds attributes with type info
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     * @param elementNameConverter converter to convert JSON object names to valid XML element names
+     * @param maxDepth maximal nesting of JSON objects and arrays, deeper documents are rejected
+     */
+    public JsonXmlReader(String namespaceUri, boolean addTypeAttributes, String artificialRootName, ElementNameConverter elementNameConverter, int maxDepth) {
+        this(namespaceUri, addTypeAttributes, artificialRootName, elementNameConverter, maxDepth, JsonSaxAdapter.JSON_FACTORY);
+    }
+
+    /**
+     * Creates JsonXmlReader
+     * @param namespaceUri namespace uri of the resulting XML.
+     * @param addTypeAttributes if true adds attributes with type info
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     * @param elementNameConverter converter to convert JSON object names to valid XML element names
+     * @param maxDepth maximal nesting of JSON objects and arrays, deeper documents are rejected
+     * @param jsonFactory factory used to create JSON parsers. It should be shared, so Jackson can reuse its buffers and field name tables.
+     */
+    public JsonXmlReader(String namespaceUri, boolean addTypeAttributes, String artificialRootName, ElementNameConverter elementNameConverter, int maxDepth, JsonFactory jsonFactory) {
+        this(JsonXmlConfig.builder()
+            .namespaceUri(namespaceUri)
+            .addTypeAttributes(addTypeAttributes)
+            .artificialRootName(artificialRootName)
+            .elementNameConverter(elementNameConverter)
+            .maxDepth(maxDepth)
+            .jsonFactory(jsonFactory)
+            .build());
+    }
+
+    /**
+     * Creates JsonXmlReader
+     * @param config conversion settings
+     */
+    public JsonXmlReader(JsonXmlConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("JsonXmlConfig can not be null");
+        }
+        this.config = config;
+    }
 
 
 	public boolean getFeature(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
@@ -147,16 +193,98 @@ public class JsonXmlReader implements XMLReader {
     }
 
 
+    /**
+     * Parses JSON from the character stream, the byte stream or the system id of the input, in this order.
+     * Bytes in UTF-8, UTF-16 or UTF-32 (or without encoding specified) are passed to Jackson as they are, so the encoding is
+     * detected and decoded by Jackson. Streams from the input are not closed, streams opened for system id are.
+     */
     public void parse(InputSource input) throws IOException, SAXException {
-        JsonParser jsonParser = new JsonFactory().createParser(input.getCharacterStream());
-        new JsonSaxAdapter(jsonParser, contentHandler, namespaceUri, addTypeAttributes, artificialRootName, elementNameConverter).parse();
+        if (input.getCharacterStream() != null) {
+            try (JsonParser jsonParser = createParser(input.getCharacterStream())) {
+                parse(jsonParser);
+            }
+        } else if (input.getByteStream() != null) {
+            try (JsonParser jsonParser = createParser(input.getByteStream(), input.getEncoding())) {
+                parse(jsonParser);
+            }
+        } else if (input.getSystemId() != null) {
+            String systemId = input.getSystemId();
+            try (InputStream inputStream = hasScheme(systemId) ? new URL(systemId).openStream() : new FileInputStream(systemId);
+                 JsonParser jsonParser = createParser(inputStream, input.getEncoding())) {
+                parse(jsonParser);
+            }
+        } else {
+            throw new SAXException("Input source has to contain character stream, byte stream or system id");
+        }
     }
 
+    /**
+     * Parses JSON from a file or URL.
+     * @param systemId URL or path of the file
+     */
     public void parse(String systemId) throws IOException, SAXException {
-        throw new UnsupportedOperationException();
+        parse(new InputSource(systemId));
+    }
+
+    private void parse(JsonParser jsonParser) {
+        config.createAdapter(jsonParser, contentHandler).parse();
+    }
+
+    /**
+     * Parsers are closed after the conversion, so Jackson releases their buffers and merges the field names into the
+     * factory. The source itself is left open, it is closed by the caller.
+     */
+    private JsonParser createParser(Reader reader) throws IOException {
+        return config.getJsonFactory().createParser(reader).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    }
+
+    private JsonParser createParser(InputStream inputStream, String encoding) throws IOException {
+        if (isDetectedByJackson(encoding)) {
+            return config.getJsonFactory().createParser(inputStream).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        } else {
+            return createParser(new InputStreamReader(inputStream, encoding));
+        }
+    }
+
+    /**
+     * Jackson detects UTF-8, UTF-16 and UTF-32 (both endians) from the content.
+     * Unknown encodings are reported the same way as by {@link InputStreamReader}.
+     */
+    private static boolean isDetectedByJackson(String encoding) throws UnsupportedEncodingException {
+        if (encoding == null) {
+            return true;
+        }
+        String charsetName;
+        try {
+            charsetName = Charset.forName(encoding).name();
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            throw new UnsupportedEncodingException(encoding);
+        }
+        return charsetName.startsWith("UTF-") || "US-ASCII".equals(charsetName);
+    }
+
+    /**
+     * Distinguishes URLs from file paths. Single letter schemes are Windows drive letters.
+     */
+    private static boolean hasScheme(String systemId) {
+        int colon = systemId.indexOf(':');
+        if (colon < 2) {
+            return false;
+        }
+        for (int i = 0; i < colon; i++) {
+            char c = systemId.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '+' || c == '-' || c == '.')) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public  String getNamespaceUri() {
-        return namespaceUri;
+        return config.getNamespaceUri();
+    }
+
+    public JsonXmlConfig getConfig() {
+        return config;
     }
 }
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonParser;
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.xml.sax.ContentHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Converts successive JSON documents with the same settings, reusing the adapter stacks and the serializer buffers
+ * between the documents. Parsers created by the session are closed after the conversion, so Jackson returns their
+ * buffers to the recycler pool of the {@link com.fasterxml.jackson.core.JsonFactory}.
+ * <pre>
+ *	JsonXmlSession session = config.createSession();
+ *	for (String json : messages) {
+ *		session.write(json, writer);
+ *	}
+ * </pre>
+ * The output is the same as with {@link JsonXmlWriter}. Sessions are not thread safe, one session converts one
+ * document at a time. Share them between threads by {@link JsonXmlSessionPool}. A session can be used again after
+ * a failed conversion.
+ */
+public class JsonXmlSession {
+
+    private final JsonXmlConfig config;
+
+    private final XmlSerializer serializer = new XmlSerializer((Writer) null);
+
+    /**
+     * Created by the first conversion, reset by the following ones and released after each of them.
+     */
+    private JsonSaxAdapter adapter;
+
+    /**
+     * Creates JsonXmlSession
+     * @param config conversion settings
+     */
+    public JsonXmlSession(JsonXmlConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("JsonXmlConfig can not be null");
+        }
+        this.config = config;
+    }
+
+    /**
+     * Converts JSON to XML and writes it to the writer. The writer is flushed but not closed.
+     * @param json JSON to convert
+     * @param writer target of the XML
+     */
+    public void write(String json, Writer writer) throws ParserException {
+        try (JsonParser jsonParser = config.getJsonFactory().createParser(json)) {
+            write(jsonParser, writer);
+        } catch (IOException e) {
+            throw new ParserException("Parsing error", e);
+        }
+    }
+
+    /**
+     * Converts JSON to XML and writes it in UTF-8 to the output stream. The stream is flushed but not closed.
+     * @param json JSON to convert, encoded in UTF-8, UTF-16 or UTF-32
+     * @param outputStream target of the XML
+     */
+    public void write(byte[] json, OutputStream outputStream) throws ParserException {
+        try (JsonParser jsonParser = config.getJsonFactory().createParser(json)) {
+            write(jsonParser, outputStream);
+        } catch (IOException e) {
+            throw new ParserException("Parsing error", e);
+        }
+    }
+
+    /**
+     * Converts JSON to XML and writes it to the writer. The writer is flushed but not closed.
+     * @param jsonParser parsed JSON, it is not closed
+     * @param writer target of the XML
+     */
+    public void write(JsonParser jsonParser, Writer writer) throws ParserException {
+        serializer.reset(writer);
+        try {
+            convert(jsonParser, serializer);
+        } finally {
+            serializer.release();
+        }
+    }
+
+    /**
+     * Converts JSON to XML and writes it in UTF-8 to the output stream. The stream is flushed but not closed.
+     * @param jsonParser parsed JSON, it is not closed
+     * @param outputStream target of the XML
+     */
+    public void write(JsonParser jsonParser, OutputStream outputStream) throws ParserException {
+        serializer.reset(outputStream);
+        try {
+            convert(jsonParser, serializer);
+        } finally {
+            serializer.release();
+        }
+    }
+
+    /**
+     * Converts JSON to SAX events.
+     * @param jsonParser parsed JSON, it is not closed
+     * @param contentHandler target of SAX events
+     */
+    public void convert(JsonParser jsonParser, ContentHandler contentHandler) throws ParserException {
+        if (adapter == null) {
+            adapter = config.createAdapter(jsonParser, contentHandler);
+        } else {
+            adapter.reset(jsonParser, contentHandler);
+        }
+        try {
+            adapter.parse();
+        } finally {
+            // idle sessions, e.g. in a pool, must not keep the last document reachable
+            adapter.release();
+        }
+    }
+
+    public JsonXmlConfig getConfig() {
+        return config;
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Bounded pool of {@link JsonXmlSession}s with the same configuration. Unlike caching in a ThreadLocal, the number of
+ * sessions depends on the number of concurrent conversions, not on the number of threads, so it works with virtual
+ * threads too. The pool never blocks, a new session is created if there is no idle one, and a released session is
+ * dropped if the pool is full.
+ * <pre>
+ *	JsonXmlSessionPool pool = new JsonXmlSessionPool(config);
+ *	// on any thread
+ *	pool.write(json, writer);
+ * </pre>
+ * Jackson recycles parser buffers through the recycler pool of the JSON factory, which is thread local by default.
+ * With virtual threads configure the factory with a shared pool, e.g.
+ * <code>JsonFactory.builder().recyclerPool(JsonRecyclerPools.newConcurrentDequePool()).build()</code>.
+ * Instances are thread safe.
+ */
+public class JsonXmlSessionPool {
+
+    /**
+     * Default maximal number of idle sessions.
+     */
+    public static final int DEFAULT_MAX_IDLE = 64;
+
+    private final JsonXmlConfig config;
+
+    private final ArrayBlockingQueue<JsonXmlSession> idle;
+
+    /**
+     * Creates JsonXmlSessionPool
+     * @param config conversion settings
+     */
+    public JsonXmlSessionPool(JsonXmlConfig config) {
+        this(config, DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * Creates JsonXmlSessionPool
+     * @param config conversion settings
+     * @param maxIdle maximal number of idle sessions kept in the pool
+     */
+    public JsonXmlSessionPool(JsonXmlConfig config, int maxIdle) {
+        if (config == null) {
+            throw new IllegalArgumentException("JsonXmlConfig can not be null");
+        }
+        if (maxIdle <= 0) {
+            throw new IllegalArgumentException("Max idle has to be positive, was " + maxIdle);
+        }
+        this.config = config;
+        this.idle = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * Returns an idle session or a new one. The session has to be released when the conversion is done.
+     */
+    public JsonXmlSession acquire() {
+        JsonXmlSession session = idle.poll();
+        return session != null ? session : new JsonXmlSession(config);
+    }
+
+    /**
+     * Returns the session to the pool. The session must not be used afterwards.
+     * @param session session acquired from this pool
+     */
+    public void release(JsonXmlSession session) {
+        if (session.getConfig() != config) {
+            throw new IllegalArgumentException("Session does not belong to this pool");
+        }
+        idle.offer(session);
+    }
+
+    /**
+     * Converts JSON to XML by a pooled session and writes it to the writer. The writer is flushed but not closed.
+     * @param json JSON to convert
+     * @param writer target of the XML
+     */
+    public void write(String json, Writer writer) throws ParserException {
+        JsonXmlSession session = acquire();
+        try {
+            session.write(json, writer);
+        } finally {
+            release(session);
+        }
+    }
+
+    /**
+     * Converts JSON to XML by a pooled session and writes it in UTF-8 to the output stream. The stream is flushed
+     * but not closed.
+     * @param json JSON to convert, encoded in UTF-8, UTF-16 or UTF-32
+     * @param outputStream target of the XML
+     */
+    public void write(byte[] json, OutputStream outputStream) throws ParserException {
+        JsonXmlSession session = acquire();
+        try {
+            session.write(json, outputStream);
+        } finally {
+            release(session);
+        }
+    }
+
+    public JsonXmlConfig getConfig() {
+        return config;
+    }
+}
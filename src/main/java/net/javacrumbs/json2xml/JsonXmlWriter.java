@@ -0,0 +1,200 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.xml.sax.ContentHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Converts JSON directly to XML text, without JAXP Transformer in between.
+ * Produces the same XML as {@link JsonXmlReader} used with an identity transformer.
+ * <pre>
+ *	JsonXmlWriter jsonXmlWriter = new JsonXmlWriter(namespace, addTypeAttributes, artificialRootName);
+ *	jsonXmlWriter.write(jsonParser, outputStream);
+ * </pre>
+ * Instances are immutable and can be shared between threads.
+ */
+public class JsonXmlWriter {
+
+    private final JsonXmlConfig config;
+
+    /**
+     * Creates JsonXmlWriter
+     */
+    public JsonXmlWriter() {
+        this("");
+    }
+
+    /**
+     * Creates JsonXmlWriter
+     * @param namespaceUri namespace uri of the resulting XML.
+     */
+    public JsonXmlWriter(String namespaceUri) {
+        this(namespaceUri, false);
+    }
+
+    /**
+     * Creates JsonXmlWriter
+     * @param namespaceUri namespace uri of the resulting XML.
+     * @param addTypeAttributes if true adds attributes with type info
+     */
+    public JsonXmlWriter(String namespaceUri, boolean addTypeAttributes) {
+        this(namespaceUri, addTypeAttributes, null);
+    }
+
+    /**
+     * Creates JsonXmlWriter
+     * @param namespaceUri namespace uri of the resulting XML.
+     * @param addTypeAttributes if true adds attributes with type info
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     */
+    public JsonXmlWriter(String namespaceUri, boolean addTypeAttributes, String artificialRootName) {
+        this(namespaceUri, addTypeAttributes, artificialRootName, null);
+    }
+
+    /**
+     * Creates JsonXmlWriter
+     * @param namespaceUri namespace uri of the resulting XML.
+     * @param addTypeAttributes if true adds attributes with type info
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     * @param elementNameConverter converter to convert JSON object names to valid XML element names
+     */
+    public JsonXmlWriter(String namespaceUri, boolean addTypeAttributes, String artificialRootName, ElementNameConverter elementNameConverter) {
+        this(namespaceUri, addTypeAttributes, artificialRootName, elementNameConverter, JsonSaxAdapter.DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Creates JsonXmlWriter
+     * @param namespaceUri namespace uri of the resulting XML.
+     * @param addTypeAttributes if true adds attributes with type info
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     * @param elementNameConverter converter to convert JSON object names to valid XML element names
+     * @param maxDepth maximal nesting of JSON objects and arrays, deeper documents are rejected
+     */
+    public JsonXmlWriter(String namespaceUri, boolean addTypeAttributes, String artificialRootName, ElementNameConverter elementNameConverter, int maxDepth) {
+        this(namespaceUri, addTypeAttributes, artificialRootName, elementNameConverter, maxDepth, JsonSaxAdapter.JSON_FACTORY);
+    }
+
+    /**
+     * Creates JsonXmlWriter
+     * @param namespaceUri namespace uri of the resulting XML.
+     * @param addTypeAttributes if true adds attributes with type info
+     * @param artificialRootName if set, an artificial root is generated so JSON documents with more roots can be handled.
+     * @param elementNameConverter converter to convert JSON object names to valid XML element names
+     * @param maxDepth maximal nesting of JSON objects and arrays, deeper documents are rejected
+     * @param jsonFactory factory used to create JSON parsers. It should be shared, so Jackson can reuse its buffers and field name tables.
+     */
+    public JsonXmlWriter(String namespaceUri, boolean addTypeAttributes, String artificialRootName, ElementNameConverter elementNameConverter, int maxDepth, JsonFactory jsonFactory) {
+        this(JsonXmlConfig.builder()
+            .namespaceUri(namespaceUri)
+            .addTypeAttributes(addTypeAttributes)
+            .artificialRootName(artificialRootName)
+            .elementNameConverter(elementNameConverter)
+            .maxDepth(maxDepth)
+            .jsonFactory(jsonFactory)
+            .build());
+    }
+
+    /**
+     * Creates JsonXmlWriter
+     * @param config conversion settings
+     */
+    public JsonXmlWriter(JsonXmlConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("JsonXmlConfig can not be null");
+        }
+        this.config = config;
+    }
+
+    /**
+     * Converts JSON to XML and writes it to the writer. The writer is flushed but not closed.
+     * @param json JSON to convert
+     * @param writer target of the XML
+     */
+    public void write(String json, Writer writer) throws ParserException {
+        // closed parser releases its buffers and field names to the factory
+        try (JsonParser jsonParser = config.getJsonFactory().createParser(json)) {
+            write(jsonParser, writer);
+        } catch (IOException e) {
+            throw new ParserException("Parsing error", e);
+        }
+    }
+
+    /**
+     * Converts JSON to XML and writes it to the writer. The writer is flushed but not closed.
+     * @param jsonParser parsed JSON
+     * @param writer target of the XML
+     */
+    public void write(JsonParser jsonParser, Writer writer) throws ParserException {
+        convert(jsonParser, new XmlSerializer(writer));
+    }
+
+    /**
+     * Converts JSON to XML and writes it in UTF-8 to the output stream. The stream is flushed but not closed.
+     * @param jsonParser parsed JSON
+     * @param outputStream target of the XML
+     */
+    public void write(JsonParser jsonParser, OutputStream outputStream) throws ParserException {
+        convert(jsonParser, new XmlSerializer(outputStream));
+    }
+
+    /**
+     * Converts JSON to XML without XML declaration, to be embedded in an element with given namespace.
+     */
+    void writeFragment(String json, Writer writer, String outerNamespace) throws ParserException {
+        try (JsonParser jsonParser = config.getJsonFactory().createParser(json)) {
+            convert(jsonParser, new XmlSerializer(writer, outerNamespace));
+        } catch (IOException e) {
+            throw new ParserException("Parsing error", e);
+        }
+    }
+
+    /**
+     * Creates adapter converting JSON fed in chunks with the settings of this writer.
+     */
+    JsonSaxAsyncAdapter createAsyncAdapter(ContentHandler contentHandler) {
+        return config.createAsyncAdapter(contentHandler);
+    }
+
+    private void convert(JsonParser jsonParser, XmlSerializer serializer) {
+        createAdapter(jsonParser, serializer).parse();
+    }
+
+    /**
+     * Creates adapter converting given parser with the settings of this writer.
+     */
+    JsonSaxAdapter createAdapter(JsonParser jsonParser, ContentHandler contentHandler) {
+        return config.createAdapter(jsonParser, contentHandler);
+    }
+
+    JsonFactory getJsonFactory() {
+        return config.getJsonFactory();
+    }
+
+    public String getNamespaceUri() {
+        return config.getNamespaceUri();
+    }
+
+    public JsonXmlConfig getConfig() {
+        return config;
+    }
+}
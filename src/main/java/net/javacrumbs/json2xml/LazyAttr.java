@@ -0,0 +1,105 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.TypeInfo;
+
+/**
+ * Read-only type attribute of an element in a lazy JSON document.
+ */
+final class LazyAttr extends LazyNode implements Attr {
+
+    static final String TYPE = "type";
+
+    private final LazyElement ownerElement;
+
+    private final String value;
+
+    LazyAttr(LazyElement ownerElement, String value) {
+        super(null, 0);
+        this.ownerElement = ownerElement;
+        this.value = value;
+    }
+
+    public short getNodeType() {
+        return ATTRIBUTE_NODE;
+    }
+
+    public String getNodeName() {
+        return TYPE;
+    }
+
+    public String getName() {
+        return TYPE;
+    }
+
+    @Override
+    public String getLocalName() {
+        return TYPE;
+    }
+
+    @Override
+    public String getNodeValue() {
+        return value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String getTextContent() {
+        return value;
+    }
+
+    public boolean getSpecified() {
+        return true;
+    }
+
+    public Element getOwnerElement() {
+        return ownerElement;
+    }
+
+    public Document getOwnerDocument() {
+        return ownerElement.getOwnerDocument();
+    }
+
+    @Override
+    public String lookupNamespaceURI(String prefix) {
+        return ownerElement.lookupNamespaceURI(prefix);
+    }
+
+    @Override
+    public boolean isDefaultNamespace(String namespaceURI) {
+        return ownerElement.isDefaultNamespace(namespaceURI);
+    }
+
+    public TypeInfo getSchemaTypeInfo() {
+        return null;
+    }
+
+    public boolean isId() {
+        return false;
+    }
+
+    public void setValue(String value) throws DOMException {
+        throw readOnly();
+    }
+}
@@ -0,0 +1,365 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import net.javacrumbs.json2xml.JsonPathFilter.State;
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.w3c.dom.Attr;
+import org.w3c.dom.CDATASection;
+import org.w3c.dom.Comment;
+import org.w3c.dom.DOMConfiguration;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.DOMImplementation;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
+import org.w3c.dom.DocumentType;
+import org.w3c.dom.Element;
+import org.w3c.dom.EntityReference;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.ProcessingInstruction;
+import org.w3c.dom.Text;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.fasterxml.jackson.core.JsonToken.END_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
+
+/**
+ * Read-only DOM document backed by JSON text, created by {@link JsonDomBuilder#buildLazy(String)}.
+ * Objects and arrays are skipped by the parser and remembered only by their position. When their children
+ * are accessed, the position is parsed again, one level at a time. The mapping is the same as in {@link JsonSaxAdapter}.
+ */
+final class LazyDocument extends LazyNode implements Document {
+
+    private final char[] json;
+
+    private final String namespaceUri;
+
+    private final boolean addTypeAttributes;
+
+    private final ElementNameConverter elementNameConverter;
+
+    private final int maxDepth;
+
+    private final JsonFactory jsonFactory;
+
+    private final LazyElement documentElement;
+
+    LazyDocument(char[] json, JsonXmlConfig config) {
+        super(null, 0);
+        this.json = json;
+        String namespaceUri = config.getNamespaceUri();
+        this.namespaceUri = namespaceUri == null || namespaceUri.isEmpty() ? null : namespaceUri;
+        this.addTypeAttributes = config.isAddTypeAttributes();
+        this.elementNameConverter = config.getElementNameConverter();
+        this.maxDepth = config.getMaxDepth();
+        this.jsonFactory = config.getJsonFactory();
+        State rootState = config.getPathFilter() != null ? config.getPathFilter().getRootState() : State.INCLUDE_ALL;
+        ConversionPlan.Node rootPlanNode = config.getPlan() != null ? config.getPlan().getRoot() : null;
+        this.documentElement = parseRoot(config.getArtificialRootName(), rootState, rootPlanNode);
+    }
+
+    private LazyElement parseRoot(String artificialRootName, State rootState, ConversionPlan.Node rootPlanNode) {
+        try (JsonParser parser = jsonFactory.createParser(json, 0, json.length)) {
+            JsonToken token = parser.nextToken();
+            if (artificialRootName != null && artificialRootName.length() > 0) {
+                if (token == null) {
+                    throw new ParserException("Empty JSON");
+                }
+                if (isSkipped(token, rootState)) {
+                    return null;
+                }
+                return createElement(parser, this, 0, artificialRootName, token, 0, 1, rootState, rootPlanNode);
+            } else if (token == START_OBJECT) {
+                LazyElement root = null;
+                while ((token = parser.nextToken()) == FIELD_NAME) {
+                    String fieldName = parser.getCurrentName();
+                    State state = rootState.field(fieldName);
+                    JsonToken value = parser.nextToken();
+                    if (state == null || isSkipped(value, state)) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    if (root != null) {
+                        throw new ParserException("More than one root element. Can not generate legal XML. You can set artificialRootName to generate an artificial root.");
+                    }
+                    ConversionPlan.Node planNode = rootPlanNode != null ? rootPlanNode.field(fieldName) : null;
+                    root = createElement(parser, this, 0, elementName(fieldName, planNode), value, 0, 2, state, planNode);
+                }
+                if (token == null) {
+                    throw new ParserException("Unexpected end of JSON");
+                }
+                return root;
+            } else {
+                throw new ParserException("Unsupported root element. Can not generate legal XML. You can set artificialRootName to generate an artificial root.");
+            }
+        } catch (IOException e) {
+            throw new ParserException("Parsing error: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses one level of the object or array.
+     */
+    LazyNode[] expand(LazyElement element) {
+        int start = element.getStart();
+        try (JsonParser parser = jsonFactory.createParser(json, start, element.getEnd() - start)) {
+            parser.nextToken();
+            // the parser may count the position from the beginning of the array or from the start
+            int shift = start - (int) parser.getTokenLocation().getCharOffset();
+            int level = element.getLevel() + 1;
+            List<LazyNode> children = new ArrayList<>();
+            State elementState = element.getFilterState();
+            ConversionPlan.Node elementPlanNode = element.getPlanNode();
+            JsonToken token;
+            if (element.getKind() == LazyElement.OBJECT) {
+                while ((token = parser.nextToken()) == FIELD_NAME) {
+                    String fieldName = parser.getCurrentName();
+                    State state = elementState.field(fieldName);
+                    JsonToken value = parser.nextToken();
+                    if (state == null || isSkipped(value, state)) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    ConversionPlan.Node planNode = elementPlanNode != null ? elementPlanNode.field(fieldName) : null;
+                    children.add(createElement(parser, element, children.size(), elementName(fieldName, planNode), value, shift, level, state, planNode));
+                }
+                if (token != END_OBJECT) {
+                    throw new ParserException("Unexpected end of JSON");
+                }
+            } else {
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == null) {
+                        throw new ParserException("Unexpected end of JSON");
+                    }
+                    if (!isSkipped(token, elementState)) {
+                        children.add(createElement(parser, element, children.size(), element.getNodeName(), token, shift, level, elementState, elementPlanNode));
+                    }
+                }
+            }
+            return children.toArray(NO_NODES);
+        } catch (IOException e) {
+            throw new ParserException("Parsing error: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates element for the value at the current token. Objects and arrays are skipped.
+     * @param level nesting the value would have if it is an object or an array
+     * @param state filter state of the value
+     * @param planNode plan of the value, null if not planned
+     */
+    private LazyElement createElement(JsonParser parser, LazyNode parent, int index, String name, JsonToken token, int shift, int level,
+                                      State state, ConversionPlan.Node planNode) throws IOException {
+        if (token == null) {
+            throw new ParserException("Unexpected end of JSON");
+        }
+        String type = addTypeAttributes ? JsonSaxAdapter.getTokenType(token) : null;
+        if (token == START_OBJECT || token == START_ARRAY) {
+            if (level > maxDepth) {
+                throw new ParserException("Maximal depth " + maxDepth + " exceeded");
+            }
+            int start = (int) parser.getTokenLocation().getCharOffset() + shift;
+            parser.skipChildren();
+            int end = (int) parser.getCurrentLocation().getCharOffset() + shift;
+            byte kind = token == START_OBJECT ? LazyElement.OBJECT : LazyElement.ARRAY;
+            // items of an array are planned by the item node, same as in JsonSaxAdapter
+            ConversionPlan.Node childPlanNode = token == START_ARRAY && planNode != null ? planNode.item() : planNode;
+            return new LazyElement(this, parent, index, name, namespaceUri, type, kind, null, start, end, level, state, childPlanNode);
+        } else {
+            String text = token != VALUE_NULL ? parser.getText() : null;
+            return new LazyElement(this, parent, index, name, namespaceUri, type, LazyElement.SCALAR, text, 0, 0, level, null, null);
+        }
+    }
+
+    /**
+     * Scalars are skipped also if they are only on the path to included values.
+     */
+    private static boolean isSkipped(JsonToken token, State state) {
+        return !state.isIncluded() && token != START_OBJECT && token != START_ARRAY;
+    }
+
+    private String elementName(String fieldName, ConversionPlan.Node planNode) {
+        if (planNode != null) {
+            return planNode.getElementName();
+        }
+        return elementNameConverter != null ? elementNameConverter.convertName(fieldName) : fieldName;
+    }
+
+    @Override
+    LazyNode[] children() {
+        return documentElement != null ? new LazyNode[]{documentElement} : NO_NODES;
+    }
+
+    public short getNodeType() {
+        return DOCUMENT_NODE;
+    }
+
+    public String getNodeName() {
+        return "#document";
+    }
+
+    public Document getOwnerDocument() {
+        return null;
+    }
+
+    @Override
+    public String getTextContent() {
+        return null;
+    }
+
+    public Element getDocumentElement() {
+        return documentElement;
+    }
+
+    public NodeList getElementsByTagName(String tagname) {
+        return getElementsByTagName(null, tagname, false);
+    }
+
+    public NodeList getElementsByTagNameNS(String namespaceURI, String localName) {
+        return getElementsByTagName(namespaceURI, localName, true);
+    }
+
+    public Element getElementById(String elementId) {
+        return null;
+    }
+
+    @Override
+    public String lookupNamespaceURI(String prefix) {
+        return documentElement != null ? documentElement.lookupNamespaceURI(prefix) : null;
+    }
+
+    @Override
+    public boolean isDefaultNamespace(String namespaceURI) {
+        return documentElement != null && documentElement.isDefaultNamespace(namespaceURI);
+    }
+
+    public DocumentType getDoctype() {
+        return null;
+    }
+
+    public DOMImplementation getImplementation() {
+        return JsonDomBuilder.DOM_IMPLEMENTATION;
+    }
+
+    public String getInputEncoding() {
+        return null;
+    }
+
+    public String getXmlEncoding() {
+        return null;
+    }
+
+    public boolean getXmlStandalone() {
+        return false;
+    }
+
+    public String getXmlVersion() {
+        return "1.0";
+    }
+
+    public boolean getStrictErrorChecking() {
+        return true;
+    }
+
+    public String getDocumentURI() {
+        return null;
+    }
+
+    public DOMConfiguration getDomConfig() {
+        throw notSupported();
+    }
+
+    public void normalizeDocument() {
+    }
+
+    public Element createElement(String tagName) throws DOMException {
+        throw notSupported();
+    }
+
+    public DocumentFragment createDocumentFragment() {
+        throw notSupported();
+    }
+
+    public Text createTextNode(String data) {
+        throw notSupported();
+    }
+
+    public Comment createComment(String data) {
+        throw notSupported();
+    }
+
+    public CDATASection createCDATASection(String data) throws DOMException {
+        throw notSupported();
+    }
+
+    public ProcessingInstruction createProcessingInstruction(String target, String data) throws DOMException {
+        throw notSupported();
+    }
+
+    public Attr createAttribute(String name) throws DOMException {
+        throw notSupported();
+    }
+
+    public EntityReference createEntityReference(String name) throws DOMException {
+        throw notSupported();
+    }
+
+    public Element createElementNS(String namespaceURI, String qualifiedName) throws DOMException {
+        throw notSupported();
+    }
+
+    public Attr createAttributeNS(String namespaceURI, String qualifiedName) throws DOMException {
+        throw notSupported();
+    }
+
+    public Node importNode(Node importedNode, boolean deep) throws DOMException {
+        throw notSupported();
+    }
+
+    public Node adoptNode(Node source) throws DOMException {
+        throw readOnly();
+    }
+
+    public Node renameNode(Node n, String namespaceURI, String qualifiedName) throws DOMException {
+        throw readOnly();
+    }
+
+    public void setXmlStandalone(boolean xmlStandalone) throws DOMException {
+        throw readOnly();
+    }
+
+    public void setXmlVersion(String xmlVersion) throws DOMException {
+        throw readOnly();
+    }
+
+    public void setStrictErrorChecking(boolean strictErrorChecking) {
+        throw readOnly();
+    }
+
+    public void setDocumentURI(String documentURI) {
+        throw readOnly();
+    }
+}
@@ -0,0 +1,335 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.TypeInfo;
+
+import java.util.Objects;
+
+/**
+ * Read-only element of a lazy JSON document. Scalar elements keep their text, objects and arrays keep only
+ * the position of their JSON text and are parsed by {@link LazyDocument#expand(LazyElement)} when their children
+ * are needed.
+ */
+final class LazyElement extends LazyNode implements Element {
+
+    static final byte SCALAR = 0;
+    static final byte OBJECT = 1;
+    static final byte ARRAY = 2;
+
+    private final LazyDocument document;
+
+    private final String name;
+
+    private final String prefix;
+
+    private final String localName;
+
+    private final String namespaceUri;
+
+    /**
+     * Value of the type attribute, null if there is none.
+     */
+    private final String type;
+
+    private final byte kind;
+
+    /**
+     * Text of a scalar, null for JSON null.
+     */
+    private final String text;
+
+    /**
+     * Position of the object or array in the JSON text.
+     */
+    private final int start;
+
+    private final int end;
+
+    /**
+     * Nesting of the object or array, counted the same way as by {@link JsonSaxAdapter}.
+     */
+    private final int level;
+
+    /**
+     * Filter state of the object or array, used when the children are expanded.
+     */
+    private final JsonPathFilter.State filterState;
+
+    /**
+     * Plan of the fields of the object or of the items of the array, null if not planned.
+     */
+    private final ConversionPlan.Node planNode;
+
+    private LazyNode[] children;
+
+    private LazyAttr typeAttribute;
+
+    LazyElement(LazyDocument document, LazyNode parent, int index, String name, String namespaceUri, String type,
+                byte kind, String text, int start, int end, int level, JsonPathFilter.State filterState, ConversionPlan.Node planNode) {
+        super(parent, index);
+        this.document = document;
+        this.name = name;
+        int colon = name.indexOf(':');
+        this.prefix = colon > 0 ? name.substring(0, colon) : null;
+        this.localName = colon > 0 ? name.substring(colon + 1) : name;
+        this.namespaceUri = namespaceUri;
+        this.type = type;
+        this.kind = kind;
+        this.text = text;
+        this.start = start;
+        this.end = end;
+        this.level = level;
+        this.filterState = filterState;
+        this.planNode = planNode;
+    }
+
+    @Override
+    LazyNode[] children() {
+        if (children == null) {
+            if (kind != SCALAR) {
+                children = document.expand(this);
+            } else if (text != null) {
+                children = new LazyNode[]{new LazyText(document, this, text)};
+            } else {
+                children = NO_NODES;
+            }
+        }
+        return children;
+    }
+
+    byte getKind() {
+        return kind;
+    }
+
+    int getStart() {
+        return start;
+    }
+
+    int getEnd() {
+        return end;
+    }
+
+    int getLevel() {
+        return level;
+    }
+
+    JsonPathFilter.State getFilterState() {
+        return filterState;
+    }
+
+    ConversionPlan.Node getPlanNode() {
+        return planNode;
+    }
+
+    public short getNodeType() {
+        return ELEMENT_NODE;
+    }
+
+    public String getNodeName() {
+        return name;
+    }
+
+    public String getTagName() {
+        return name;
+    }
+
+    @Override
+    public String getLocalName() {
+        return localName;
+    }
+
+    @Override
+    public String getPrefix() {
+        return prefix;
+    }
+
+    @Override
+    public String getNamespaceURI() {
+        return namespaceUri;
+    }
+
+    public Document getOwnerDocument() {
+        return document;
+    }
+
+    @Override
+    public boolean hasAttributes() {
+        return type != null;
+    }
+
+    @Override
+    public NamedNodeMap getAttributes() {
+        return new AttributeMap(type != null ? attribute() : null);
+    }
+
+    private LazyAttr attribute() {
+        if (typeAttribute == null) {
+            typeAttribute = new LazyAttr(this, type);
+        }
+        return typeAttribute;
+    }
+
+    private boolean isType(String name) {
+        return type != null && LazyAttr.TYPE.equals(name);
+    }
+
+    private boolean isType(String namespaceURI, String localName) {
+        return (namespaceURI == null || namespaceURI.isEmpty()) && isType(localName);
+    }
+
+    public String getAttribute(String name) {
+        return isType(name) ? type : "";
+    }
+
+    public String getAttributeNS(String namespaceURI, String localName) throws DOMException {
+        return isType(namespaceURI, localName) ? type : "";
+    }
+
+    public Attr getAttributeNode(String name) {
+        return isType(name) ? attribute() : null;
+    }
+
+    public Attr getAttributeNodeNS(String namespaceURI, String localName) throws DOMException {
+        return isType(namespaceURI, localName) ? attribute() : null;
+    }
+
+    public boolean hasAttribute(String name) {
+        return isType(name);
+    }
+
+    public boolean hasAttributeNS(String namespaceURI, String localName) throws DOMException {
+        return isType(namespaceURI, localName);
+    }
+
+    public NodeList getElementsByTagName(String name) {
+        return getElementsByTagName(null, name, false);
+    }
+
+    public NodeList getElementsByTagNameNS(String namespaceURI, String localName) throws DOMException {
+        return getElementsByTagName(namespaceURI, localName, true);
+    }
+
+    public TypeInfo getSchemaTypeInfo() {
+        return null;
+    }
+
+    @Override
+    public String lookupNamespaceURI(String prefix) {
+        return Objects.equals(prefix, this.prefix) ? namespaceUri : super.lookupNamespaceURI(prefix);
+    }
+
+    @Override
+    public boolean isDefaultNamespace(String namespaceURI) {
+        return prefix == null ? Objects.equals(namespaceURI, namespaceUri) : super.isDefaultNamespace(namespaceURI);
+    }
+
+    @Override
+    public String lookupPrefix(String namespaceURI) {
+        return prefix != null && namespaceURI != null && namespaceURI.equals(namespaceUri) ? prefix : null;
+    }
+
+    public void setAttribute(String name, String value) throws DOMException {
+        throw readOnly();
+    }
+
+    public void removeAttribute(String name) throws DOMException {
+        throw readOnly();
+    }
+
+    public Attr setAttributeNode(Attr newAttr) throws DOMException {
+        throw readOnly();
+    }
+
+    public Attr removeAttributeNode(Attr oldAttr) throws DOMException {
+        throw readOnly();
+    }
+
+    public void setAttributeNS(String namespaceURI, String qualifiedName, String value) throws DOMException {
+        throw readOnly();
+    }
+
+    public void removeAttributeNS(String namespaceURI, String localName) throws DOMException {
+        throw readOnly();
+    }
+
+    public Attr setAttributeNodeNS(Attr newAttr) throws DOMException {
+        throw readOnly();
+    }
+
+    public void setIdAttribute(String name, boolean isId) throws DOMException {
+        throw readOnly();
+    }
+
+    public void setIdAttributeNS(String namespaceURI, String localName, boolean isId) throws DOMException {
+        throw readOnly();
+    }
+
+    public void setIdAttributeNode(Attr idAttr, boolean isId) throws DOMException {
+        throw readOnly();
+    }
+
+    /**
+     * Attributes of an element, there is at most one.
+     */
+    private static final class AttributeMap implements NamedNodeMap {
+
+        private final LazyAttr attribute;
+
+        AttributeMap(LazyAttr attribute) {
+            this.attribute = attribute;
+        }
+
+        public Node getNamedItem(String name) {
+            return attribute != null && attribute.getName().equals(name) ? attribute : null;
+        }
+
+        public Node getNamedItemNS(String namespaceURI, String localName) throws DOMException {
+            return namespaceURI == null || namespaceURI.isEmpty() ? getNamedItem(localName) : null;
+        }
+
+        public Node item(int index) {
+            return index == 0 ? attribute : null;
+        }
+
+        public int getLength() {
+            return attribute != null ? 1 : 0;
+        }
+
+        public Node setNamedItem(Node arg) throws DOMException {
+            throw readOnly();
+        }
+
+        public Node removeNamedItem(String name) throws DOMException {
+            throw readOnly();
+        }
+
+        public Node setNamedItemNS(Node arg) throws DOMException {
+            throw readOnly();
+        }
+
+        public Node removeNamedItemNS(String namespaceURI, String localName) throws DOMException {
+            throw readOnly();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import org.w3c.dom.DOMException;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.UserDataHandler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Base of the read-only DOM nodes created by {@link JsonDomBuilder#buildLazy(String)}. Children are provided by
+ * {@link #children()}, which elements compute on the first call.
+ */
+abstract class LazyNode implements Node {
+
+    static final LazyNode[] NO_NODES = new LazyNode[0];
+
+    private final LazyNode parent;
+
+    /**
+     * Position in the children of the parent.
+     */
+    private final int index;
+
+    LazyNode(LazyNode parent, int index) {
+        this.parent = parent;
+        this.index = index;
+    }
+
+    LazyNode[] children() {
+        return NO_NODES;
+    }
+
+    public Node getParentNode() {
+        return parent;
+    }
+
+    public NodeList getChildNodes() {
+        return new LazyNodeList(children());
+    }
+
+    public Node getFirstChild() {
+        LazyNode[] children = children();
+        return children.length > 0 ? children[0] : null;
+    }
+
+    public Node getLastChild() {
+        LazyNode[] children = children();
+        return children.length > 0 ? children[children.length - 1] : null;
+    }
+
+    public Node getPreviousSibling() {
+        return parent != null && index > 0 ? parent.children()[index - 1] : null;
+    }
+
+    public Node getNextSibling() {
+        if (parent == null) {
+            return null;
+        }
+        LazyNode[] siblings = parent.children();
+        return index + 1 < siblings.length ? siblings[index + 1] : null;
+    }
+
+    public boolean hasChildNodes() {
+        return children().length > 0;
+    }
+
+    public NamedNodeMap getAttributes() {
+        return null;
+    }
+
+    public boolean hasAttributes() {
+        return false;
+    }
+
+    public String getNodeValue() {
+        return null;
+    }
+
+    public String getNamespaceURI() {
+        return null;
+    }
+
+    public String getPrefix() {
+        return null;
+    }
+
+    public String getLocalName() {
+        return null;
+    }
+
+    public String getBaseURI() {
+        return null;
+    }
+
+    /**
+     * Concatenated text of all descendants, the tree is walked without recursion.
+     */
+    public String getTextContent() {
+        StringBuilder text = new StringBuilder();
+        Deque<LazyNode> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            LazyNode node = stack.pop();
+            if (node.getNodeType() == TEXT_NODE) {
+                text.append(node.getNodeValue());
+            } else {
+                LazyNode[] children = node.children();
+                for (int i = children.length - 1; i >= 0; i--) {
+                    stack.push(children[i]);
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Descendant elements with given name in document order, "*" matches all elements.
+     */
+    NodeList getElementsByTagName(String uri, String name, boolean matchNamespace) {
+        List<Node> result = new ArrayList<>();
+        Deque<LazyNode> stack = new ArrayDeque<>();
+        LazyNode[] roots = children();
+        for (int i = roots.length - 1; i >= 0; i--) {
+            stack.push(roots[i]);
+        }
+        while (!stack.isEmpty()) {
+            LazyNode node = stack.pop();
+            if (node.getNodeType() == ELEMENT_NODE) {
+                if (matches(node, uri, name, matchNamespace)) {
+                    result.add(node);
+                }
+                LazyNode[] children = node.children();
+                for (int i = children.length - 1; i >= 0; i--) {
+                    stack.push(children[i]);
+                }
+            }
+        }
+        return new LazyNodeList(result.toArray(NO_NODES));
+    }
+
+    private static boolean matches(Node node, String uri, String name, boolean matchNamespace) {
+        if (matchNamespace) {
+            boolean uriMatches = "*".equals(uri) || (uri == null || uri.isEmpty() ? node.getNamespaceURI() == null : uri.equals(node.getNamespaceURI()));
+            return uriMatches && ("*".equals(name) || name.equals(node.getLocalName()));
+        } else {
+            return "*".equals(name) || name.equals(node.getNodeName());
+        }
+    }
+
+    public boolean isSameNode(Node other) {
+        return this == other;
+    }
+
+    public boolean isSupported(String feature, String version) {
+        return false;
+    }
+
+    public Object getFeature(String feature, String version) {
+        return null;
+    }
+
+    public String lookupPrefix(String namespaceURI) {
+        return null;
+    }
+
+    public boolean isDefaultNamespace(String namespaceURI) {
+        return parent != null && parent.isDefaultNamespace(namespaceURI);
+    }
+
+    public String lookupNamespaceURI(String prefix) {
+        return parent != null ? parent.lookupNamespaceURI(prefix) : null;
+    }
+
+    public Object getUserData(String key) {
+        return null;
+    }
+
+    public void normalize() {
+    }
+
+    public void setNodeValue(String nodeValue) throws DOMException {
+        throw readOnly();
+    }
+
+    public void setPrefix(String prefix) throws DOMException {
+        throw readOnly();
+    }
+
+    public void setTextContent(String textContent) throws DOMException {
+        throw readOnly();
+    }
+
+    public Node insertBefore(Node newChild, Node refChild) throws DOMException {
+        throw readOnly();
+    }
+
+    public Node replaceChild(Node newChild, Node oldChild) throws DOMException {
+        throw readOnly();
+    }
+
+    public Node removeChild(Node oldChild) throws DOMException {
+        throw readOnly();
+    }
+
+    public Node appendChild(Node newChild) throws DOMException {
+        throw readOnly();
+    }
+
+    public Object setUserData(String key, Object data, UserDataHandler handler) {
+        throw notSupported();
+    }
+
+    public Node cloneNode(boolean deep) {
+        throw notSupported();
+    }
+
+    public short compareDocumentPosition(Node other) throws DOMException {
+        throw notSupported();
+    }
+
+    public boolean isEqualNode(Node arg) {
+        throw notSupported();
+    }
+
+    static DOMException readOnly() {
+        return new DOMException(DOMException.NO_MODIFICATION_ALLOWED_ERR, "Lazy JSON document is read-only");
+    }
+
+    static DOMException notSupported() {
+        return new DOMException(DOMException.NOT_SUPPORTED_ERR, "Operation is not supported by lazy JSON document");
+    }
+
+    static final class LazyNodeList implements NodeList {
+
+        static final LazyNodeList EMPTY = new LazyNodeList(NO_NODES);
+
+        private final LazyNode[] nodes;
+
+        LazyNodeList(LazyNode[] nodes) {
+            this.nodes = nodes;
+        }
+
+        public Node item(int index) {
+            return index >= 0 && index < nodes.length ? nodes[index] : null;
+        }
+
+        public int getLength() {
+            return nodes.length;
+        }
+    }
+}
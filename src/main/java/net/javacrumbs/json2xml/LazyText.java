@@ -0,0 +1,109 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Text;
+
+/**
+ * Read-only text of a scalar value in a lazy JSON document.
+ */
+final class LazyText extends LazyNode implements Text {
+
+    private final LazyDocument document;
+
+    private final String data;
+
+    LazyText(LazyDocument document, LazyElement parent, String data) {
+        super(parent, 0);
+        this.document = document;
+        this.data = data;
+    }
+
+    public short getNodeType() {
+        return TEXT_NODE;
+    }
+
+    public String getNodeName() {
+        return "#text";
+    }
+
+    @Override
+    public String getNodeValue() {
+        return data;
+    }
+
+    @Override
+    public String getTextContent() {
+        return data;
+    }
+
+    public Document getOwnerDocument() {
+        return document;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public int getLength() {
+        return data.length();
+    }
+
+    public String substringData(int offset, int count) throws DOMException {
+        if (offset < 0 || count < 0 || offset > data.length()) {
+            throw new DOMException(DOMException.INDEX_SIZE_ERR, "Invalid offset " + offset + " or count " + count);
+        }
+        return data.substring(offset, Math.min(data.length(), offset + count));
+    }
+
+    public boolean isElementContentWhitespace() {
+        return false;
+    }
+
+    public String getWholeText() {
+        return data;
+    }
+
+    public void setData(String data) throws DOMException {
+        throw readOnly();
+    }
+
+    public void appendData(String arg) throws DOMException {
+        throw readOnly();
+    }
+
+    public void insertData(int offset, String arg) throws DOMException {
+        throw readOnly();
+    }
+
+    public void deleteData(int offset, int count) throws DOMException {
+        throw readOnly();
+    }
+
+    public void replaceData(int offset, int count, String arg) throws DOMException {
+        throw readOnly();
+    }
+
+    public Text splitText(int offset) throws DOMException {
+        throw readOnly();
+    }
+
+    public Text replaceWholeText(String content) throws DOMException {
+        throw readOnly();
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import org.xml.sax.Attributes;
+
+/**
+ * Immutable attributes with at most one "type" attribute. Instances for the known types are shared by all adapters
+ * and threads.
+ */
+final class TypeAttributes implements Attributes {
+
+    private static final String TYPE = "type";
+
+    private static final String ATTRIBUTE_TYPE = "string";
+
+    static final TypeAttributes EMPTY = new TypeAttributes(null);
+
+    static final TypeAttributes INT = new TypeAttributes("int");
+
+    static final TypeAttributes FLOAT = new TypeAttributes("float");
+
+    static final TypeAttributes BOOLEAN = new TypeAttributes("boolean");
+
+    static final TypeAttributes STRING = new TypeAttributes("string");
+
+    static final TypeAttributes NULL = new TypeAttributes("null");
+
+    static final TypeAttributes ARRAY = new TypeAttributes("array");
+
+    private final String type;
+
+    private TypeAttributes(String type) {
+        this.type = type;
+    }
+
+    /**
+     * Returns attributes for given type. Shared instance is returned for known types, unknown types
+     * (e.g. from subclasses of {@link JsonSaxAdapter}) get a new instance.
+     *
+     * @param type value of the type attribute, null for no attribute
+     */
+    static TypeAttributes forType(String type) {
+        if (type == null) {
+            return EMPTY;
+        }
+        switch (type) {
+            case "int":
+                return INT;
+            case "float":
+                return FLOAT;
+            case "boolean":
+                return BOOLEAN;
+            case "string":
+                return STRING;
+            case "null":
+                return NULL;
+            case "array":
+                return ARRAY;
+            default:
+                return new TypeAttributes(type);
+        }
+    }
+
+    public int getLength() {
+        return type != null ? 1 : 0;
+    }
+
+    public String getURI(int index) {
+        return isValid(index) ? "" : null;
+    }
+
+    public String getLocalName(int index) {
+        return isValid(index) ? TYPE : null;
+    }
+
+    public String getQName(int index) {
+        return isValid(index) ? TYPE : null;
+    }
+
+    public String getType(int index) {
+        return isValid(index) ? ATTRIBUTE_TYPE : null;
+    }
+
+    public String getValue(int index) {
+        return isValid(index) ? type : null;
+    }
+
+    public int getIndex(String uri, String localName) {
+        return type != null && "".equals(uri) && TYPE.equals(localName) ? 0 : -1;
+    }
+
+    public int getIndex(String qName) {
+        return type != null && TYPE.equals(qName) ? 0 : -1;
+    }
+
+    public String getType(String uri, String localName) {
+        return getIndex(uri, localName) == 0 ? ATTRIBUTE_TYPE : null;
+    }
+
+    public String getType(String qName) {
+        return getIndex(qName) == 0 ? ATTRIBUTE_TYPE : null;
+    }
+
+    public String getValue(String uri, String localName) {
+        return getIndex(uri, localName) == 0 ? type : null;
+    }
+
+    public String getValue(String qName) {
+        return getIndex(qName) == 0 ? type : null;
+    }
+
+    private boolean isValid(int index) {
+        return index == 0 && type != null;
+    }
+}
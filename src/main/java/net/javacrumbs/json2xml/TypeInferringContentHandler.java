@@ -0,0 +1,453 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import net.javacrumbs.json2xml.JsonXmlHelper.TYPE;
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static net.javacrumbs.json2xml.JsonXmlHelper.toTYPE;
+
+/**
+ * SAX content handler that writes XML to a {@link JsonGenerator} without requiring type attributes. Types are
+ * decided in one pass as the events arrive:
+ * <ul>
+ * <li>type attribute, if present, the same as in {@link JsonGeneratorContentHandler}</li>
+ * <li>shape hint, i.e. type for a path of element names like "/order/items"</li>
+ * <li>element with child elements is an array if its first child has the same name as the element
+ * (arrays generated by {@link JsonSaxAdapter}) or if its first two children have the same name, otherwise it is an object</li>
+ * <li>element without child elements is null if empty, boolean for "true" and "false", number if the text is a JSON number,
+ * string otherwise</li>
+ * </ul>
+ * Comparing names of the first two children needs lookahead. The events of the first child are buffered until the second
+ * child starts, but at most maxLookahead events. If the first child is bigger, the element is converted as an object.
+ * Repeated names in an object are written as duplicate fields. Text of elements with child elements is ignored.
+ * <pre>
+ *	Map&lt;String, TYPE&gt; shapeHints = Collections.singletonMap("/order/items", TYPE.ARRAY);
+ *	parser.parse(inputStream, new TypeInferringContentHandler(generator, name -&gt; name, shapeHints));
+ * </pre>
+ * The generator is flushed at the end of the document, but not closed.
+ */
+public class TypeInferringContentHandler extends DefaultHandler {
+
+    /**
+     * Default maximal number of buffered events.
+     */
+    public static final int DEFAULT_MAX_LOOKAHEAD = 10000;
+
+    private static final byte PENDING = 0;
+    private static final byte OBJECT = 1;
+    private static final byte ARRAY = 2;
+    private static final byte SCALAR = 3;
+
+    private final JsonGenerator generator;
+
+    private final ElementNameConverter converter;
+
+    private final Map<String, TYPE> shapeHints;
+
+    private final int maxLookahead;
+
+    /**
+     * Text of the innermost element.
+     */
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Names of open elements, indexed by depth.
+     */
+    private String[] names = new String[32];
+
+    /**
+     * Paths of open elements, used only with shape hints.
+     */
+    private String[] paths = new String[32];
+
+    /**
+     * Types of open elements given by attributes or hints, null if they are inferred.
+     */
+    private TYPE[] types = new TYPE[32];
+
+    /**
+     * Kinds of open elements, PENDING until the first child or the end of the element comes.
+     */
+    private byte[] kinds = new byte[32];
+
+    private int depth;
+
+    /**
+     * Depth of elements nested in a scalar element with type. Their text is part of the scalar value.
+     */
+    private int depthInScalar;
+
+    /**
+     * Events waiting for a decision whether an element is an array. The first one is the start of the first child.
+     */
+    private final List<Event> queue = new ArrayList<>();
+
+    private int head;
+
+    /**
+     * Position of the lookahead in the queue, 0 if it has not started.
+     */
+    private int scanIndex;
+
+    /**
+     * Depth of the lookahead relative to the parent of the first child.
+     */
+    private int scanDepth;
+
+    private Locator locator;
+
+    /**
+     * Creates TypeInferringContentHandler
+     * @param generator A configured JsonGenerator
+     */
+    public TypeInferringContentHandler(JsonGenerator generator) {
+        this(generator, name -> name);
+    }
+
+    /**
+     * Creates TypeInferringContentHandler
+     * @param generator A configured JsonGenerator
+     * @param converter Converter to convert elements names from XML to JSON
+     */
+    public TypeInferringContentHandler(JsonGenerator generator, ElementNameConverter converter) {
+        this(generator, converter, Collections.<String, TYPE>emptyMap());
+    }
+
+    /**
+     * Creates TypeInferringContentHandler
+     * @param generator A configured JsonGenerator
+     * @param converter Converter to convert elements names from XML to JSON
+     * @param shapeHints types of elements by paths of XML names, e.g. "/order/items"
+     */
+    public TypeInferringContentHandler(JsonGenerator generator, ElementNameConverter converter, Map<String, TYPE> shapeHints) {
+        this(generator, converter, shapeHints, DEFAULT_MAX_LOOKAHEAD);
+    }
+
+    /**
+     * Creates TypeInferringContentHandler
+     * @param generator A configured JsonGenerator
+     * @param converter Converter to convert elements names from XML to JSON
+     * @param shapeHints types of elements by paths of XML names, e.g. "/order/items"
+     * @param maxLookahead maximal number of events buffered when deciding whether an element is an array
+     */
+    public TypeInferringContentHandler(JsonGenerator generator, ElementNameConverter converter, Map<String, TYPE> shapeHints, int maxLookahead) {
+        if (maxLookahead < 0) {
+            throw new IllegalArgumentException("Max lookahead can not be negative, was " + maxLookahead);
+        }
+        this.generator = generator;
+        this.converter = converter;
+        this.shapeHints = shapeHints != null && !shapeHints.isEmpty() ? shapeHints : null;
+        this.maxLookahead = maxLookahead;
+    }
+
+    @Override
+    public void setDocumentLocator(Locator locator) {
+        this.locator = locator;
+    }
+
+    @Override
+    public void startDocument() {
+        depth = 0;
+        depthInScalar = 0;
+        queue.clear();
+        head = 0;
+        scanIndex = 0;
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        try {
+            generator.flush();
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+        String name = qName.length() > 0 ? qName : localName;
+        String type = attributes.getValue("type");
+        if (head < queue.size()) {
+            queue.add(new Event(Event.START, name, type));
+            resume();
+        } else if (!start(name, type)) {
+            queue.add(new Event(Event.START, name, type));
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (head < queue.size()) {
+            queue.add(new Event(Event.END, null, null));
+            resume();
+        } else {
+            end();
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (head < queue.size()) {
+            queue.add(new Event(Event.TEXT, null, new String(ch, start, length)));
+        } else if (collectsText()) {
+            text.append(ch, start, length);
+        }
+    }
+
+    /**
+     * Processes queued events until an undecided element is found.
+     */
+    private void resume() throws SAXException {
+        while (head < queue.size()) {
+            Event event = queue.get(head);
+            if (event.kind == Event.START) {
+                if (!start(event.name, event.value)) {
+                    return;
+                }
+                scanIndex = 0;
+            } else if (event.kind == Event.END) {
+                end();
+            } else if (collectsText()) {
+                text.append(event.value);
+            }
+            head++;
+        }
+        queue.clear();
+        head = 0;
+    }
+
+    /**
+     * Handles start of an element.
+     * @return false if it is the first child of an element and it is not possible to decide yet whether the parent is an array
+     */
+    private boolean start(String name, String typeValue) throws SAXException {
+        if (depthInScalar > 0) {
+            depthInScalar++;
+            return true;
+        }
+        if (depth > 0 && kinds[depth - 1] == PENDING) {
+            byte kind = decideContainer(depth - 1, name);
+            if (kind == PENDING) {
+                return false;
+            }
+            startContainer(depth - 1, kind);
+        }
+        push(name, typeValue);
+        return true;
+    }
+
+    private void end() throws SAXException {
+        if (depthInScalar > 1) {
+            depthInScalar--;
+            return;
+        }
+        int index = depth - 1;
+        TYPE type = types[index];
+        try {
+            switch (kinds[index]) {
+                case SCALAR:
+                    depthInScalar = 0;
+                    writeName(index);
+                    JsonXmlHelper.writeValue(generator, type, text.toString());
+                    break;
+                case PENDING:
+                    if (type == TYPE.OBJECT || type == TYPE.ARRAY || index == 0) {
+                        // empty object or array
+                        startContainer(index, type == TYPE.ARRAY ? ARRAY : OBJECT);
+                        writeEnd(kinds[index]);
+                    } else {
+                        writeName(index);
+                        writeInferredValue(text.toString());
+                    }
+                    break;
+                default:
+                    writeEnd(kinds[index]);
+                    break;
+            }
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+        text.setLength(0);
+        names[index] = null;
+        paths[index] = null;
+        depth--;
+    }
+
+    private boolean collectsText() {
+        return depth > 0 && (kinds[depth - 1] == PENDING || kinds[depth - 1] == SCALAR);
+    }
+
+    /**
+     * Decides kind of an element when its first child starts.
+     */
+    private byte decideContainer(int index, String firstChildName) {
+        TYPE type = types[index];
+        if (type == TYPE.ARRAY) {
+            return ARRAY;
+        } else if (type == TYPE.OBJECT) {
+            return OBJECT;
+        } else if (firstChildName.equals(names[index])) {
+            return ARRAY;
+        }
+        return lookahead(firstChildName);
+    }
+
+    /**
+     * Looks for the start of the second child in the queue.
+     */
+    private byte lookahead(String firstChildName) {
+        if (scanIndex == 0) {
+            // the start of the first child is at the head of the queue
+            scanIndex = head + 1;
+            scanDepth = 1;
+        }
+        while (scanIndex < queue.size()) {
+            Event event = queue.get(scanIndex++);
+            if (event.kind == Event.START) {
+                if (scanDepth == 0) {
+                    return firstChildName.equals(event.name) ? ARRAY : OBJECT;
+                }
+                scanDepth++;
+            } else if (event.kind == Event.END) {
+                if (scanDepth == 0) {
+                    // single child
+                    return OBJECT;
+                }
+                scanDepth--;
+            }
+        }
+        return queue.size() - head >= maxLookahead ? OBJECT : PENDING;
+    }
+
+    private void push(String name, String typeValue) throws SAXException {
+        TYPE type = null;
+        if (typeValue != null && !typeValue.trim().isEmpty()) {
+            type = toTYPE(typeValue);
+            if (type == null) {
+                throw new SAXParseException("Unknown type [" + typeValue + "] of element " + name, locator);
+            }
+        }
+        String path = null;
+        if (shapeHints != null) {
+            path = (depth > 0 ? paths[depth - 1] : "") + "/" + name;
+            if (type == null) {
+                type = shapeHints.get(path);
+            }
+        }
+        boolean scalar = type != null && type != TYPE.OBJECT && type != TYPE.ARRAY;
+        if (depth == 0 && scalar) {
+            throw new SAXParseException("invalid root type [" + type + "]", locator);
+        }
+        if (depth == kinds.length) {
+            int length = depth * 2;
+            names = Arrays.copyOf(names, length);
+            paths = Arrays.copyOf(paths, length);
+            types = Arrays.copyOf(types, length);
+            kinds = Arrays.copyOf(kinds, length);
+        }
+        names[depth] = name;
+        paths[depth] = path;
+        types[depth] = type;
+        kinds[depth] = scalar ? SCALAR : PENDING;
+        if (scalar) {
+            depthInScalar = 1;
+        }
+        text.setLength(0);
+        depth++;
+    }
+
+    private void startContainer(int index, byte kind) throws SAXException {
+        kinds[index] = kind;
+        try {
+            writeName(index);
+            if (kind == ARRAY) {
+                generator.writeStartArray();
+            } else {
+                generator.writeStartObject();
+            }
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    private void writeName(int index) throws IOException {
+        if (index > 0 && kinds[index - 1] == OBJECT) {
+            generator.writeFieldName(converter.convertName(names[index]));
+        }
+    }
+
+    private void writeEnd(byte kind) throws IOException {
+        if (kind == ARRAY) {
+            generator.writeEndArray();
+        } else {
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeInferredValue(String value) throws IOException {
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            generator.writeNull();
+        } else if ("true".equals(trimmed) || "false".equals(trimmed)) {
+            generator.writeBoolean(trimmed.length() == 4);
+        } else if (JsonXmlHelper.isJsonNumber(trimmed)) {
+            generator.writeNumber(trimmed);
+        } else {
+            generator.writeString(value);
+        }
+    }
+
+    /**
+     * SAX event buffered during lookahead.
+     */
+    private static final class Event {
+        static final byte START = 0;
+        static final byte END = 1;
+        static final byte TEXT = 2;
+
+        final byte kind;
+
+        /**
+         * Name of started element.
+         */
+        final String name;
+
+        /**
+         * Type attribute of started element or text.
+         */
+        final String value;
+
+        Event(byte kind, String name, String value) {
+            this.kind = kind;
+            this.name = name;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,409 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Minimal SAX serializer used by {@link JsonXmlWriter}. Handles just the subset of SAX produced by {@link JsonSaxAdapter}
+ * (elements, attributes and text, one default namespace), escapes it and writes it through a single char buffer
+ * either to a {@link Writer} or, encoded as UTF-8, to an {@link OutputStream}. Characters not allowed in XML 1.0
+ * (control characters other than tab, line feed and carriage return, U+FFFE and U+FFFF) are replaced by U+FFFD.
+ */
+class XmlSerializer implements ContentHandler {
+
+    /**
+     * The buffer starts small and grows up to BUFFER_SIZE, so small documents do not allocate the full buffer.
+     */
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final char[] XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>".toCharArray();
+
+    private static final String REPLACEMENT = "\uFFFD";
+
+    /**
+     * Escape sequences of characters up to '&gt;', null if the character can be written as is.
+     */
+    private static final String[] TEXT_ESCAPES = createEscapes(false);
+
+    private static final String[] ATTRIBUTE_ESCAPES = createEscapes(true);
+
+    private char[] buffer = new char[INITIAL_BUFFER_SIZE];
+
+    private int position;
+
+    private Writer writer;
+
+    private OutputStream outputStream;
+
+    private byte[] bytes;
+
+    private char pendingHighSurrogate;
+
+    private boolean startTagOpen;
+
+    private String[] namespaces = new String[16];
+
+    private int depth;
+
+    /**
+     * Namespace of the element the output is embedded in, the root element declares its namespace only if it differs.
+     */
+    private String outerNamespace = "";
+
+    private boolean xmlDeclaration = true;
+
+    XmlSerializer(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Creates serializer of an XML fragment, which is written without XML declaration
+     * @param outerNamespace namespace of the element the fragment is embedded in
+     */
+    XmlSerializer(Writer writer, String outerNamespace) {
+        this.writer = writer;
+        this.outerNamespace = outerNamespace != null ? outerNamespace : "";
+        this.xmlDeclaration = false;
+    }
+
+    XmlSerializer(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Prepares the serializer for another document written to the writer, the buffers (grown by the previous documents)
+     * are reused.
+     */
+    void reset(Writer writer) {
+        release();
+        this.writer = writer;
+    }
+
+    /**
+     * Prepares the serializer for another document written to the output stream, the buffers (grown by the previous
+     * documents) are reused.
+     */
+    void reset(OutputStream outputStream) {
+        release();
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Drops the target and the state of the last document, so an idle serializer does not keep them reachable.
+     */
+    void release() {
+        writer = null;
+        outputStream = null;
+        position = 0;
+        pendingHighSurrogate = 0;
+        startTagOpen = false;
+        while (depth > 0) {
+            namespaces[--depth] = null;
+        }
+        outerNamespace = "";
+        xmlDeclaration = true;
+    }
+
+    public void setDocumentLocator(Locator locator) {
+        //ignore
+    }
+
+    public void startDocument() throws SAXException {
+        if (xmlDeclaration) {
+            write(XML_DECLARATION, 0, XML_DECLARATION.length);
+        }
+    }
+
+    public void endDocument() throws SAXException {
+        try {
+            flushBuffer();
+            if (writer != null) {
+                writer.flush();
+            } else {
+                if (pendingHighSurrogate != 0) {
+                    // unpaired surrogate
+                    outputStream.write('?');
+                    pendingHighSurrogate = 0;
+                }
+                outputStream.flush();
+            }
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    public void startPrefixMapping(String prefix, String uri) {
+        //ignore, only the default namespace is supported
+    }
+
+    public void endPrefixMapping(String prefix) {
+        //ignore
+    }
+
+    public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+        closeStartTag();
+        write('<');
+        write(qName);
+        String namespace = uri != null ? uri : "";
+        String parentNamespace = depth > 0 ? namespaces[depth - 1] : outerNamespace;
+        if (!namespace.equals(parentNamespace)) {
+            write(" xmlns=\"");
+            writeEscaped(namespace, true);
+            write('"');
+        }
+        pushNamespace(namespace);
+        for (int i = 0; i < atts.getLength(); i++) {
+            write(' ');
+            write(atts.getQName(i));
+            write("=\"");
+            writeEscaped(atts.getValue(i), true);
+            write('"');
+        }
+        startTagOpen = true;
+    }
+
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        depth--;
+        if (startTagOpen) {
+            write("/>");
+            startTagOpen = false;
+        } else {
+            write("</");
+            write(qName);
+            write('>');
+        }
+    }
+
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        if (length > 0) {
+            closeStartTag();
+            writeEscaped(ch, start, length, false);
+        }
+    }
+
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        characters(ch, start, length);
+    }
+
+    public void processingInstruction(String target, String data) {
+        //ignore
+    }
+
+    public void skippedEntity(String name) {
+        //ignore
+    }
+
+    private void pushNamespace(String namespace) {
+        if (depth == namespaces.length) {
+            String[] newNamespaces = new String[depth * 2];
+            System.arraycopy(namespaces, 0, newNamespaces, 0, depth);
+            namespaces = newNamespaces;
+        }
+        namespaces[depth++] = namespace;
+    }
+
+    /**
+     * Writes already serialized XML, e.g. a fragment, as a content of the current element.
+     */
+    void writeRaw(String xml) throws SAXException {
+        closeStartTag();
+        write(xml);
+    }
+
+    /**
+     * Writes out the buffered output, so a document converted incrementally can be sent in parts.
+     */
+    void flush() throws SAXException {
+        flushBuffer();
+    }
+
+    private void closeStartTag() throws SAXException {
+        if (startTagOpen) {
+            write('>');
+            startTagOpen = false;
+        }
+    }
+
+    private void writeEscaped(String text, boolean inAttribute) throws SAXException {
+        int length = text.length();
+        int runStart = 0;
+        for (int i = 0; i < length; i++) {
+            String replacement = escape(text.charAt(i), inAttribute);
+            if (replacement != null) {
+                write(text, runStart, i);
+                write(replacement);
+                runStart = i + 1;
+            }
+        }
+        write(text, runStart, length);
+    }
+
+    private void writeEscaped(char[] text, int start, int length, boolean inAttribute) throws SAXException {
+        int end = start + length;
+        int runStart = start;
+        for (int i = start; i < end; i++) {
+            String replacement = escape(text[i], inAttribute);
+            if (replacement != null) {
+                write(text, runStart, i - runStart);
+                write(replacement);
+                runStart = i + 1;
+            }
+        }
+        write(text, runStart, end - runStart);
+    }
+
+    /**
+     * Returns escape sequence for given character or null if the character can be written as is.
+     */
+    private static String escape(char c, boolean inAttribute) {
+        if (c < TEXT_ESCAPES.length) {
+            return inAttribute ? ATTRIBUTE_ESCAPES[c] : TEXT_ESCAPES[c];
+        }
+        return c >= '\uFFFE' ? REPLACEMENT : null;
+    }
+
+    private static String[] createEscapes(boolean inAttribute) {
+        String[] escapes = new String['>' + 1];
+        // character references to control characters are not allowed in XML 1.0 either
+        Arrays.fill(escapes, 0, 0x20, REPLACEMENT);
+        escapes['\t'] = inAttribute ? "&#9;" : null;
+        escapes['\n'] = inAttribute ? "&#10;" : null;
+        escapes['\r'] = "&#13;";
+        escapes['"'] = inAttribute ? "&quot;" : null;
+        escapes['&'] = "&amp;";
+        escapes['<'] = "&lt;";
+        escapes['>'] = "&gt;";
+        return escapes;
+    }
+
+    private void write(char c) throws SAXException {
+        if (position == buffer.length) {
+            makeSpace();
+        }
+        buffer[position++] = c;
+    }
+
+    private void write(String text) throws SAXException {
+        write(text, 0, text.length());
+    }
+
+    private void write(String text, int start, int end) throws SAXException {
+        while (start < end) {
+            if (position == buffer.length) {
+                makeSpace();
+            }
+            int count = Math.min(end - start, buffer.length - position);
+            text.getChars(start, start + count, buffer, position);
+            position += count;
+            start += count;
+        }
+    }
+
+    private void write(char[] text, int start, int length) throws SAXException {
+        while (length > 0) {
+            if (position == buffer.length) {
+                makeSpace();
+            }
+            int count = Math.min(length, buffer.length - position);
+            System.arraycopy(text, start, buffer, position, count);
+            position += count;
+            start += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Grows the full buffer, or flushes it once it has its maximal size.
+     */
+    private void makeSpace() throws SAXException {
+        if (buffer.length < BUFFER_SIZE) {
+            buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, BUFFER_SIZE));
+        } else {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws SAXException {
+        try {
+            if (writer != null) {
+                writer.write(buffer, 0, position);
+            } else {
+                // a char takes at most 3 bytes in UTF-8, surrogate pairs take 4 bytes for 2 chars
+                if (bytes == null || bytes.length < position * 3 + 1) {
+                    bytes = new byte[buffer.length * 3 + 1];
+                }
+                outputStream.write(bytes, 0, encodeUtf8());
+            }
+            position = 0;
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    /**
+     * Encodes the char buffer to the byte buffer. A high surrogate at the end of the char buffer is kept
+     * until its low surrogate arrives with the next flush.
+     *
+     * @return number of bytes written
+     */
+    private int encodeUtf8() {
+        int length = 0;
+        for (int i = 0; i < position; i++) {
+            char c = buffer[i];
+            if (pendingHighSurrogate != 0) {
+                char high = pendingHighSurrogate;
+                pendingHighSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(high, c);
+                    bytes[length++] = (byte) (0xf0 | (codePoint >> 18));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | (codePoint & 0x3f));
+                    continue;
+                }
+                // unpaired surrogate
+                bytes[length++] = '?';
+            }
+            if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xc0 | (c >> 6));
+                bytes[length++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c)) {
+                pendingHighSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                // unpaired surrogate
+                bytes[length++] = '?';
+            } else {
+                bytes[length++] = (byte) (0xe0 | (c >> 12));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                bytes[length++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import org.custommonkey.xmlunit.Diff;
+import org.custommonkey.xmlunit.XMLUnit;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.convertToXml;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CachingElementNameConverterTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final ElementNameConverter countingConverter = name -> {
+        calls.incrementAndGet();
+        return name.replaceAll("@", "_");
+    };
+
+    @Test
+    public void testConvertsOncePerName() throws Exception {
+        CachingElementNameConverter converter = new CachingElementNameConverter(countingConverter);
+        String xml = convertToXml("{\"@root\":[{\"@a\":1}, {\"@a\":2}, {\"@a\":3}]}", new JsonXmlReader("", false, null, converter));
+        Diff diff = XMLUnit.compareXML("<_root><_root><_a>1</_a></_root><_root><_a>2</_a></_root><_root><_a>3</_a></_root></_root>", xml);
+        assertTrue(diff.toString(), diff.identical());
+        assertEquals(2, calls.get());
+        assertEquals(2, converter.getMissCount());
+        assertEquals(2, converter.getHitCount());
+        assertEquals(2, converter.size());
+    }
+
+    @Test
+    public void testReturnsSharedInstance() {
+        CachingElementNameConverter converter = new CachingElementNameConverter(countingConverter);
+        assertSame(converter.convertName(new String("@a")), converter.convertName(new String("@a")));
+    }
+
+    @Test
+    public void testEviction() {
+        CachingElementNameConverter converter = new CachingElementNameConverter(countingConverter, 10);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("_" + i, converter.convertName("@" + i));
+        }
+        assertEquals(10, converter.size());
+        assertEquals(90, converter.getEvictionCount());
+        assertEquals(100, converter.getMissCount());
+    }
+
+    @Test
+    public void testHotNameSurvivesEviction() {
+        CachingElementNameConverter converter = new CachingElementNameConverter(countingConverter, 10);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("_hot", converter.convertName("@hot"));
+            assertEquals("_" + i, converter.convertName("@" + i));
+        }
+        assertEquals(101, calls.get());
+        assertEquals(99, converter.getHitCount());
+        assertEquals(10, converter.size());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final CachingElementNameConverter converter = new CachingElementNameConverter(countingConverter, 50);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        assertEquals("_" + (i % 100), converter.convertName("@" + (i % 100)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(40000, converter.getHitCount() + converter.getMissCount());
+        assertTrue(converter.size() <= 54);
+    }
+}
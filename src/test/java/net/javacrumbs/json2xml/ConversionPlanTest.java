@@ -0,0 +1,156 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.JSON;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConversionPlanTest {
+
+    private static final String SCHEMA = "{\"type\":\"object\",\"properties\":{\"document\":{\"type\":\"object\",\"properties\":{" +
+        "\"a\":{\"type\":\"integer\"},\"c\":{\"properties\":{\"d\":{\"type\":\"string\"}}}," +
+        "\"h\":{\"type\":\"array\",\"items\":{\"allOf\":[{\"properties\":{\"i\":{}}},{\"properties\":{\"j\":{}}}]}}," +
+        "\"k\":{\"items\":{\"items\":[{\"properties\":{\"l\":true}},{\"anyOf\":[{\"properties\":{\"n\":{}}}]}]}}}}}}";
+
+    private final List<String> converted = new ArrayList<>();
+
+    private final ElementNameConverter converter = name -> {
+        converted.add(name);
+        return "x_" + name;
+    };
+
+    @Test
+    public void testSameAsWithoutPlan() {
+        ConversionPlan plan = ConversionPlan.fromSamples(converter, JSON);
+        String expected = convert(JSON, null);
+        converted.clear();
+        assertEquals(expected, convert(JSON, plan));
+        assertEquals(Collections.emptyList(), converted);
+    }
+
+    @Test
+    public void testNotPlannedFieldsAreConverted() {
+        ConversionPlan plan = ConversionPlan.fromSamples(converter, "{\"document\":{\"a\":1,\"c\":{\"d\":\"text\"}}}");
+        String expected = convert(JSON, null);
+        converted.clear();
+        assertEquals(expected, convert(JSON, plan));
+        assertEquals(14, converted.size());
+        assertTrue(!converted.contains("a") && !converted.contains("d") && converted.contains("e"));
+    }
+
+    @Test
+    public void testDifferentShape() {
+        ConversionPlan plan = ConversionPlan.fromSamples(converter, "{\"a\":{\"b\":1},\"c\":[{\"d\":1}]}");
+        String json = "{\"a\":[{\"b\":1},{\"x\":2}],\"c\":{\"d\":3},\"e\":\"text\"}";
+        assertEquals(convert(json, null), convert(json, plan));
+    }
+
+    @Test
+    public void testSchema() {
+        ConversionPlan plan = ConversionPlan.fromSchema(converter, SCHEMA);
+        String expected = convert(JSON, null);
+        converted.clear();
+        assertEquals(expected, convert(JSON, plan));
+        // not in the schema
+        assertEquals(Arrays.asList("b", "e", "f", "g", "m", "o", "p", "q"), converted);
+    }
+
+    @Test
+    public void testAsync() throws Exception {
+        ConversionPlan plan = ConversionPlan.fromSamples(converter, JSON);
+        String expected = convert(JSON, null);
+        converted.clear();
+        JsonXmlWriter writer = new JsonXmlWriter(config(plan));
+        StringWriter out = new StringWriter();
+        XmlSerializer serializer = new XmlSerializer(out);
+        JsonSaxAsyncAdapter adapter = writer.createAsyncAdapter(serializer);
+        byte[] data = JSON.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < data.length; i += 5) {
+            adapter.feed(data, i, Math.min(5, data.length - i));
+        }
+        adapter.endOfInput();
+        serializer.flush();
+        assertEquals(expected, out.toString());
+        assertEquals(Collections.emptyList(), converted);
+    }
+
+    @Test
+    public void testDeepSample() {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            json.append("{\"a\":[");
+        }
+        for (int i = 0; i < 500; i++) {
+            json.append("]}");
+        }
+        ConversionPlan plan = ConversionPlan.fromSamples(converter, json.toString());
+        ConversionPlan.Node node = plan.getRoot();
+        for (int i = 0; i < 500; i++) {
+            node = node.field("a").item();
+        }
+        assertEquals(500, converted.size());
+    }
+
+    @Test
+    public void testDeepSchema() {
+        StringBuilder schema = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            schema.append("{\"properties\":{\"a\":");
+        }
+        schema.append("{}");
+        for (int i = 0; i < 300; i++) {
+            schema.append("}}");
+        }
+        ConversionPlan plan = ConversionPlan.fromSchema(converter, schema.toString());
+        ConversionPlan.Node node = plan.getRoot();
+        for (int i = 0; i < 300; i++) {
+            node = node.field("a");
+            assertEquals("x_a", node.getElementName());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentConverter() {
+        ConversionPlan plan = ConversionPlan.fromSamples(converter, JSON);
+        JsonXmlConfig.builder().plan(plan).build();
+    }
+
+    @Test(expected = ParserException.class)
+    public void testEmptySample() {
+        ConversionPlan.fromSamples(converter, "");
+    }
+
+    private JsonXmlConfig config(ConversionPlan plan) {
+        return JsonXmlConfig.builder().addTypeAttributes(true).artificialRootName("root").elementNameConverter(converter).plan(plan).build();
+    }
+
+    private String convert(String json, ConversionPlan plan) {
+        StringWriter out = new StringWriter();
+        new JsonXmlWriter(config(plan)).write(json, out);
+        return out.toString();
+    }
+}
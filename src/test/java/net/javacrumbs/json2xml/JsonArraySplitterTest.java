@@ -0,0 +1,132 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JsonArraySplitterTest {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final List<String> RECORDS = Arrays.asList("{\"a\":1,\"b\":[true,null]}", "\"text\"", "[1,2]", "{}", "3.5");
+
+    private static final String JSON = "{\"meta\":{\"items\":[0]},\"data\":[{\"x\":1},{\"items\":[" + String.join(",", RECORDS) + "]}],\"after\":1}";
+
+    @Test
+    public void testDocuments() throws Exception {
+        Iterator<Document> documents = new JsonArraySplitter("/data/1/items", "item", "http://javacrumbs.net/test", true)
+                .documents(JSON_FACTORY.createParser(JSON));
+        JsonDomBuilder builder = new JsonDomBuilder("http://javacrumbs.net/test", true, "item");
+        for (String record : RECORDS) {
+            assertTrue(documents.hasNext());
+            assertEquals(serialize(builder.build(record)), serialize(documents.next()));
+        }
+        assertFalse(documents.hasNext());
+    }
+
+    @Test
+    public void testConfig() throws Exception {
+        JsonXmlConfig config = JsonXmlConfig.builder().addTypeAttributes(true).artificialRootName("ignored")
+                .pathFilter(JsonPathFilter.excludes("/b")).build();
+        Iterator<Document> documents = new JsonArraySplitter("/data/1/items", "item", config).documents(JSON_FACTORY.createParser(JSON));
+        JsonDomBuilder builder = new JsonDomBuilder(config.toBuilder().artificialRootName("item").build());
+        for (String record : RECORDS) {
+            assertEquals(serialize(builder.build(record)), serialize(documents.next()));
+        }
+        assertFalse(documents.hasNext());
+    }
+
+    @Test
+    public void testSplitToContentHandler() throws Exception {
+        RecordCounter counter = new RecordCounter();
+        long records = new JsonArraySplitter("", "item").split(JSON_FACTORY.createParser("[{\"a\":1},{\"a\":2},{\"a\":3}] trailing content is not read"), counter);
+        assertEquals(3, records);
+        assertEquals(3, counter.documents);
+        assertEquals(Arrays.asList("item", "a", "item", "a", "item", "a"), counter.elements);
+    }
+
+    @Test
+    public void testRecordsAreReadLazily() throws Exception {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 10000; i++) {
+            json.append(i > 0 ? "," : "").append("{\"id\":").append(i).append('}');
+        }
+        json.append("]}");
+        JsonParser parser = JSON_FACTORY.createParser(new StringReader(json.toString()));
+        Iterator<Document> documents = new JsonArraySplitter("/items", "item").documents(parser);
+        Node id = documents.next().getDocumentElement().getFirstChild();
+        assertEquals("id", id.getNodeName());
+        assertEquals("0", id.getTextContent());
+        assertTrue(parser.getCurrentLocation().getCharOffset() < 100);
+    }
+
+    @Test(expected = ParserException.class)
+    public void testMissingPath() throws Exception {
+        new JsonArraySplitter("/data/2/items", "item").split(JSON_FACTORY.createParser(JSON), new DefaultHandler());
+    }
+
+    @Test(expected = ParserException.class)
+    public void testNotArray() throws Exception {
+        new JsonArraySplitter("/meta", "item").split(JSON_FACTORY.createParser(JSON), new DefaultHandler());
+    }
+
+    @Test(expected = ParserException.class)
+    public void testTruncatedArray() throws Exception {
+        new JsonArraySplitter("", "item").split(JSON_FACTORY.createParser("[1,2"), new DefaultHandler());
+    }
+
+    private static String serialize(Node node) throws Exception {
+        StringWriter writer = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(node), new StreamResult(writer));
+        return writer.toString();
+    }
+
+    private static class RecordCounter extends DefaultHandler {
+        private int documents;
+        private final List<String> elements = new ArrayList<>();
+
+        @Override
+        public void startDocument() {
+            documents++;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            elements.add(qName);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.junit.Test;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.JSON;
+import static net.javacrumbs.jsonunit.JsonAssert.assertJsonEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class JsonDomBuilderTest {
+
+    private static final String TYPES_JSON = "{\"root\":{\"a\":{},\"b\":[],\"c\":[{},[],{\"d\":[1,{\"e\":null}]}],\"f\":\"x\",\"g\":\"\",\"h\":1.5,\"i\":true}}";
+
+    private final List<String> convertedNames = new ArrayList<>();
+
+    private final ElementNameConverter recordingConverter = name -> {
+        convertedNames.add(name);
+        return name;
+    };
+
+    @Test
+    public void testSameAsTransformer() throws Exception {
+        assertSameAsTransformer(JSON, new JsonXmlReader("http://javacrumbs.net/test", true), new JsonDomBuilder("http://javacrumbs.net/test", true).build(JSON));
+        assertSameAsTransformer(TYPES_JSON, new JsonXmlReader("", true), new JsonDomBuilder("", true).build(TYPES_JSON));
+    }
+
+    @Test
+    public void testLazySameAsEager() throws Exception {
+        assertLazySameAsEager(JSON, new JsonDomBuilder());
+        assertLazySameAsEager(JSON, new JsonDomBuilder("http://javacrumbs.net/test", true));
+        assertLazySameAsEager(TYPES_JSON, new JsonDomBuilder("", true));
+        assertLazySameAsEager("[{\"name\":\"smith\"},{\"skill\":\"java\"}]", new JsonDomBuilder(null, true, "elem"));
+        assertLazySameAsEager("{\"a\":1, \"b\":[2, 3]}", new JsonDomBuilder("", false, "artificialRoot"));
+        assertLazySameAsEager("1", new JsonDomBuilder("", true, "elem"));
+        assertLazySameAsEager("{\"@root\":{\"@a\":1}}", new JsonDomBuilder("", false, null, name -> name.replace('@', '_')));
+    }
+
+    @Test
+    public void testConfigWithFilterAndPlan() throws Exception {
+        ElementNameConverter converter = name -> name.toUpperCase();
+        ConversionPlan plan = ConversionPlan.fromSamples(converter, "{\"document\":{\"c\":{\"d\":\"\"},\"k\":[[{\"l\":1}]]}}");
+        JsonPathFilter[] filters = {null, JsonPathFilter.includes("/document/c", "/document/k/*/l"),
+                JsonPathFilter.excludes("/document/a", "/document/f", "/document/k/n"), JsonPathFilter.includes("/document/h/i")};
+        for (JsonPathFilter filter : filters) {
+            JsonXmlConfig config = JsonXmlConfig.builder().addTypeAttributes(true).elementNameConverter(converter)
+                    .pathFilter(filter).plan(plan).build();
+            JsonDomBuilder builder = new JsonDomBuilder(config);
+            assertSameAsTransformer(JSON, new JsonXmlReader(config), builder.build(JSON));
+            assertLazySameAsEager(JSON, builder);
+            assertLazySameAsEager("[{\"document\":{\"a\":1}},2]", new JsonDomBuilder(config.toBuilder().artificialRootName("root").build()));
+        }
+    }
+
+    @Test
+    public void testLazyExpansion() {
+        Document document = new JsonDomBuilder("", false, null, recordingConverter)
+                .buildLazy("{\"root\":{\"a\":{\"x\":1,\"y\":{\"z\":2}},\"b\":[{\"u\":3},{\"v\":4}]}}");
+        assertEquals(Collections.singletonList("root"), convertedNames);
+
+        Element root = document.getDocumentElement();
+        assertEquals("root", root.getNodeName());
+        assertEquals(Collections.singletonList("root"), convertedNames);
+
+        Node b = root.getLastChild();
+        assertEquals("b", b.getNodeName());
+        assertEquals(Arrays.asList("root", "a", "b"), convertedNames);
+
+        Node secondItem = b.getChildNodes().item(1);
+        assertEquals("b", secondItem.getNodeName());
+        assertEquals("4", secondItem.getFirstChild().getTextContent());
+        assertEquals(Arrays.asList("root", "a", "b", "v"), convertedNames);
+        assertEquals("b", secondItem.getPreviousSibling().getNodeName());
+        assertNull(secondItem.getNextSibling());
+        assertEquals("a", b.getPreviousSibling().getNodeName());
+        assertEquals(document, secondItem.getOwnerDocument());
+    }
+
+    @Test
+    public void testLazyNavigation() throws Exception {
+        Document document = new JsonDomBuilder("", true).buildLazy(JSON);
+        Element root = document.getDocumentElement();
+        assertEquals("text", XPathFactory.newInstance().newXPath().evaluate("/document/c/d", document));
+        assertEquals(6.0, XPathFactory.newInstance().newXPath().evaluate("count(/document/f/f/f)", document, XPathConstants.NUMBER));
+        NodeList es = root.getElementsByTagName("e");
+        assertEquals(4, es.getLength());
+        assertEquals("array", ((Element) es.item(0)).getAttribute("type"));
+        assertEquals("int", es.item(1).getAttributes().getNamedItem("type").getNodeValue());
+        assertEquals("", ((Element) es.item(1)).getAttribute("other"));
+        assertEquals(9, document.getElementsByTagNameNS("", "f").getLength());
+        assertEquals("123", es.item(0).getTextContent());
+    }
+
+    @Test
+    public void testLazyIsReadOnly() {
+        Document document = new JsonDomBuilder().buildLazy(JSON);
+        Element root = document.getDocumentElement();
+        try {
+            root.setAttribute("a", "b");
+            fail("Exception expected");
+        } catch (DOMException e) {
+            assertEquals(DOMException.NO_MODIFICATION_ALLOWED_ERR, e.code);
+        }
+        try {
+            root.appendChild(root.getFirstChild());
+            fail("Exception expected");
+        } catch (DOMException e) {
+            assertEquals(DOMException.NO_MODIFICATION_ALLOWED_ERR, e.code);
+        }
+    }
+
+    @Test
+    public void testLazyConvertBackToJson() throws Exception {
+        Document document = new JsonDomBuilder("", true, "root").buildLazy(TYPES_JSON);
+        assertJsonEquals(TYPES_JSON, JsonXmlHelper.convertToJson(document));
+    }
+
+    @Test(expected = ParserException.class)
+    public void testLazyMoreRoots() {
+        new JsonDomBuilder().buildLazy("{\"a\":1,\"b\":2}");
+    }
+
+    @Test
+    public void testFieldNamesAreReused() {
+        // without interning, names are the same instances only if the parsers merge their symbols to the factory
+        JsonFactory jsonFactory = JsonFactory.builder().disable(JsonFactory.Feature.INTERN_FIELD_NAMES).build();
+        List<String> names = new ArrayList<>();
+        JsonDomBuilder builder = new JsonDomBuilder("", false, null, name -> {
+            names.add(name);
+            return name;
+        }, JsonSaxAdapter.DEFAULT_MAX_DEPTH, jsonFactory);
+        builder.build("{\"root\":{\"a\":1}}");
+        builder.build("{\"root\":{\"a\":1}}");
+        assertEquals(4, names.size());
+        assertSame(names.get(1), names.get(3));
+    }
+
+    @Test
+    public void testLazyMaxDepth() {
+        Document document = new JsonDomBuilder("", false, null, null, 3).buildLazy("{\"a\":{\"b\":[[1]]}}");
+        Node b = document.getDocumentElement().getFirstChild();
+        try {
+            b.getFirstChild();
+            fail("Exception expected");
+        } catch (ParserException e) {
+            assertEquals("Maximal depth 3 exceeded", e.getMessage());
+        }
+    }
+
+    private static void assertSameAsTransformer(String json, JsonXmlReader reader, Document document) throws Exception {
+        DOMResult result = new DOMResult();
+        TransformerFactory.newInstance().newTransformer().transform(new SAXSource(reader, new InputSource(new StringReader(json))), result);
+        assertEquals(serialize(result.getNode()), serialize(document));
+    }
+
+    private static void assertLazySameAsEager(String json, JsonDomBuilder builder) throws Exception {
+        assertEquals(serialize(builder.build(json)), serialize(builder.buildLazy(json)));
+    }
+
+    private static String serialize(Node node) throws Exception {
+        StringWriter writer = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(node), new StreamResult(writer));
+        return writer.toString();
+    }
+}
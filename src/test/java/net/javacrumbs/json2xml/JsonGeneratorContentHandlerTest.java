@@ -0,0 +1,69 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import org.junit.Test;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import java.io.StringReader;
+
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.JSON;
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.convertToXml;
+import static net.javacrumbs.jsonunit.JsonAssert.assertJsonEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class JsonGeneratorContentHandlerTest {
+
+    @Test
+    public void testBackAndForth() throws Exception {
+        String xml = convertToXml(JSON, new JsonXmlReader("http://javacrumbs.net/test", true, "root"));
+        assertJsonEquals(JSON, JsonXmlHelper.convertToJson(new InputSource(new StringReader(xml))));
+    }
+
+    @Test
+    public void testSameAsDom() throws Exception {
+        String json = "{\"a\":[{\"b\":1.5,\"c\":[[true,null]],\"d\":\"<x>\"}],\"e\":-12}";
+        Node node = JsonXmlHelper.convertToDom(json, "", true, "root");
+        String xml = convertToXml(json, new JsonXmlReader("", true, "root"));
+        assertEquals(JsonXmlHelper.convertToJson(node), JsonXmlHelper.convertToJson(new InputSource(new StringReader(xml))));
+    }
+
+    @Test
+    public void testNestedElementsInScalar() throws Exception {
+        String xml = "<root><a type=\"string\">x<b>y</b>z</a></root>";
+        assertJsonEquals("{\"a\":\"xyz\"}", JsonXmlHelper.convertToJson(new InputSource(new StringReader(xml))));
+    }
+
+    @Test(expected = SAXException.class)
+    public void testScalarRoot() throws Exception {
+        JsonXmlHelper.convertToJson(new InputSource(new StringReader("<root type=\"int\">1</root>")));
+    }
+
+    @Test
+    public void testUnknownType() throws Exception {
+        try {
+            JsonXmlHelper.convertToJson(new InputSource(new StringReader("<root>\n<a type=\"int\">1</a>\n  <b type=\"integer\">2</b></root>")));
+            fail("Exception expected");
+        } catch (SAXParseException e) {
+            assertEquals("Unknown type [integer] of element b", e.getMessage());
+            assertEquals(3, e.getLineNumber());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.JSON;
+import static org.junit.Assert.assertEquals;
+
+public class JsonPathFilterTest {
+
+    private static final String DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+
+    @Test
+    public void testIncludes() {
+        assertEquals("<document><a>1</a><c><d>text</d></c></document>", convert(JSON, JsonPathFilter.includes("/document/a", "/document/c/d")));
+        assertEquals("<document><c><d>text</d></c></document>", convert(JSON, JsonPathFilter.includes("/document/c")));
+    }
+
+    @Test
+    public void testIncludeInArray() {
+        assertEquals("<document><h><h><i>true</i></h></h></document>", convert(JSON, JsonPathFilter.includes("/document/h/i")));
+        assertEquals("<document><e><e>1</e><e>2</e><e>3</e></e></document>", convert(JSON, JsonPathFilter.includes("/document/e")));
+    }
+
+    @Test
+    public void testExcludes() {
+        assertEquals("<document><a>1</a><b>2</b><e><e>1</e><e>2</e><e>3</e></e><g/><h><h><j>false</j></h></h></document>",
+                convert(JSON, JsonPathFilter.excludes("/document/c", "/document/f", "/document/k", "/document/h/i")));
+    }
+
+    @Test
+    public void testExcludeWins() {
+        JsonPathFilter filter = new JsonPathFilter(Arrays.asList("/document/c", "/document/a"), Arrays.asList("/document/c/d", "/document/a"));
+        assertEquals("<document><c/></document>", convert(JSON, filter));
+    }
+
+    @Test
+    public void testWildcard() {
+        assertEquals("<document><a>1</a></document>", convert(JSON, JsonPathFilter.includes("/*/a")));
+        assertEquals("<document><k><k><k><m>2</m></k></k><k><k><o>4</o></k><k/></k></k></document>",
+                convert(JSON, new JsonPathFilter(Arrays.asList("/document/k/*"), Arrays.asList("/*/*/l", "/document/k/n", "/document/k/q", "/document/k/p"))));
+    }
+
+    @Test
+    public void testScalarOnPathIsSkipped() {
+        assertEquals("<document/>", convert(JSON, JsonPathFilter.includes("/document/a/x")));
+    }
+
+    @Test
+    public void testArtificialRoot() {
+        StringWriter writer = new StringWriter();
+        new JsonXmlWriter(JsonXmlConfig.builder().artificialRootName("root").pathFilter(JsonPathFilter.includes("/b")).build())
+                .write("{\"a\":1,\"b\":[2,3]}", writer);
+        assertEquals(DECLARATION + "<root><b><b>2</b><b>3</b></b></root>", writer.toString());
+    }
+
+    @Test
+    public void testSkippedNamesAreNotConverted() {
+        final List<String> converted = new ArrayList<>();
+        ElementNameConverter converter = name -> {
+            converted.add(name);
+            return name;
+        };
+        StringWriter writer = new StringWriter();
+        new JsonXmlWriter(JsonXmlConfig.builder().elementNameConverter(converter).pathFilter(JsonPathFilter.includes("/document/c/d")).build())
+                .write(JSON, writer);
+        assertEquals(Arrays.asList("document", "c", "d"), converted);
+    }
+
+    @Test
+    public void testNoFilter() {
+        assertEquals(convert(JSON, null), convert(JSON, new JsonPathFilter(Collections.<String>emptyList(), Collections.<String>emptyList())));
+    }
+
+    private static String convert(String json, JsonPathFilter filter) {
+        StringWriter writer = new StringWriter();
+        new JsonXmlWriter(JsonXmlConfig.builder().pathFilter(filter).build()).write(json, writer);
+        String xml = writer.toString();
+        assertEquals(DECLARATION, xml.substring(0, DECLARATION.length()));
+        return xml.substring(DECLARATION.length());
+    }
+}
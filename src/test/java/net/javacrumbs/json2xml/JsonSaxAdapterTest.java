@@ -15,14 +15,19 @@
  */
 package net.javacrumbs.json2xml;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.StreamReadConstraints;
 import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
 import org.custommonkey.xmlunit.Diff;
 import org.custommonkey.xmlunit.XMLUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.w3c.dom.Node;
+import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
 
 import javax.xml.transform.Result;
 import javax.xml.transform.Transformer;
@@ -31,11 +36,22 @@ import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static net.javacrumbs.json2xml.JsonXmlHelper.convertToJson;
 import static net.javacrumbs.jsonunit.JsonAssert.assertJsonEquals;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 import static org.mockito.Mockito.mock;
 
 
@@ -338,6 +354,122 @@ public class JsonSaxAdapterTest {
         assertJsonEquals(JSON, convertedBackJSON);
     }
     
+    @Test
+    public void testScalarsAreNotCopied() throws Exception {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled());
+
+        int values = 10000;
+        StringBuilder json = new StringBuilder("{\"root\":{");
+        for (int i = 0; i < values; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\"f").append(i % 10).append("\":");
+            switch (i % 3) {
+                case 0:
+                    json.append("\"some text value ").append(i).append('"');
+                    break;
+                case 1:
+                    json.append(i * 31);
+                    break;
+                default:
+                    json.append(i % 2 == 0);
+            }
+        }
+        json.append("}}");
+        JsonFactory jsonFactory = new JsonFactory();
+        ContentHandler contentHandler = new DefaultHandler();
+        long allocated = Long.MAX_VALUE;
+        // warm up and take the best run to filter out JIT and class loading noise
+        for (int i = 0; i < 20; i++) {
+            JsonParser jsonParser = jsonFactory.createParser(new StringReader(json.toString()));
+            long before = allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            new JsonSaxAdapter(jsonParser, contentHandler).parse();
+            allocated = Math.min(allocated, allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - before);
+        }
+        assertTrue("Allocated " + allocated + " bytes for " + values + " values", allocated < values * 4L);
+    }
+
+    @Test
+    public void testTypeAttributesAreShared() throws Exception {
+        final List<Attributes> attributes = new ArrayList<>();
+        ContentHandler contentHandler = new DefaultHandler() {
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes atts) {
+                attributes.add(atts);
+            }
+        };
+        JsonFactory jsonFactory = new JsonFactory();
+        new JsonSaxAdapter(jsonFactory.createParser("{\"a\":[1]}"), contentHandler, "", true).parse();
+        new JsonSaxAdapter(jsonFactory.createParser("{\"b\":2}"), contentHandler, "", true).parse();
+        assertEquals(3, attributes.size());
+        assertEquals("array", attributes.get(0).getValue("type"));
+        assertEquals("int", attributes.get(1).getValue("", "type"));
+        assertSame(attributes.get(1), attributes.get(2));
+    }
+
+    @Test
+    public void testOverriddenTokenType() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new SAXSource(new JsonXmlReader("", true) {
+            @Override
+            public void parse(InputSource input) throws IOException {
+                new JsonSaxAdapter(new JsonFactory().createParser(input.getCharacterStream()), getContentHandler(), "", true) {
+                    @Override
+                    protected String getCurrentTokenType() {
+                        String type = super.getCurrentTokenType();
+                        return "int".equals(type) ? "integer" : type;
+                    }
+                }.parse();
+            }
+        }, new InputSource(new StringReader("{\"a\":[1]}"))), new StreamResult(out));
+        Diff diff = XMLUnit.compareXML("<a type=\"array\"><a type=\"integer\">1</a></a>", new String(out.toByteArray()));
+        assertTrue(diff.toString(), diff.identical());
+    }
+
+    @Test
+    public void testDeepNesting() throws Exception {
+        int depth = 100000;
+        JsonFactory jsonFactory = JsonFactory.builder()
+                .streamReadConstraints(StreamReadConstraints.builder().maxNestingDepth(Integer.MAX_VALUE).build())
+                .build();
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            json.append(i % 2 == 0 ? "{\"a\":" : "[");
+        }
+        json.append('1');
+        for (int i = depth - 1; i >= 0; i--) {
+            json.append(i % 2 == 0 ? '}' : ']');
+        }
+        final AtomicInteger elements = new AtomicInteger();
+        ContentHandler contentHandler = new DefaultHandler() {
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                elements.incrementAndGet();
+            }
+        };
+        new JsonSaxAdapter(jsonFactory.createParser(json.toString()), contentHandler).parse();
+        assertEquals(depth, elements.get());
+    }
+
+    @Test
+    public void testMaxDepth() throws Exception {
+        JsonFactory jsonFactory = new JsonFactory();
+        ContentHandler contentHandler = new DefaultHandler();
+        String json = "{\"a\":{\"b\":[[1]]}}";
+        new JsonSaxAdapter(jsonFactory.createParser(json), contentHandler, "", false, null, null, 4).parse();
+        try {
+            new JsonSaxAdapter(jsonFactory.createParser(json), contentHandler, "", false, null, null, 3).parse();
+            fail("Exception expected");
+        } catch (ParserException e) {
+            assertEquals("Parsing error: Maximal depth 3 exceeded", e.getMessage());
+        }
+    }
+
     public static String convertToXml(final String json) throws Exception {
         return convertToXml(json, new JsonXmlReader());
     }
@@ -0,0 +1,162 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.JSON;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JsonSaxAsyncAdapterTest {
+
+    private static final String UNICODE_JSON = "{\"root\":{\"text\":\"\u017elu\u0165ou\u010dk\u00fd k\u016f\u0148 \ud83d\udc0e\",\"escaped\":\"a\\u0041\\n\",\"n\":-1.5e10}}";
+
+    @Test
+    public void testAllChunkSizes() {
+        for (String json : Arrays.asList(JSON, UNICODE_JSON)) {
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            String expected = convert(json, new JsonXmlWriter("http://javacrumbs.net/test", true));
+            for (int chunkSize = 1; chunkSize <= bytes.length; chunkSize++) {
+                StringWriter writer = new StringWriter();
+                JsonSaxAsyncAdapter adapter = new JsonSaxAsyncAdapter(new XmlSerializer(writer), "http://javacrumbs.net/test", true);
+                for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+                    boolean last = offset + chunkSize >= bytes.length;
+                    assertEquals(last, adapter.feed(bytes, offset, Math.min(chunkSize, bytes.length - offset)));
+                }
+                adapter.endOfInput();
+                assertEquals("Chunk size " + chunkSize, expected, writer.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testEventsAreEmittedIncrementally() {
+        ElementCollector collector = new ElementCollector();
+        JsonSaxAsyncAdapter adapter = new JsonSaxAsyncAdapter(collector);
+        assertFalse(adapter.feed(bytes("{\"root\":{\"a\":1,\"b\":[tr")));
+        assertEquals(Arrays.asList("root", "a", "b"), collector.elements);
+        assertFalse(adapter.feed(bytes("ue]")));
+        assertEquals(Arrays.asList("root", "a", "b", "b"), collector.elements);
+        assertFalse(collector.ended);
+        assertTrue(adapter.feed(bytes("}}")));
+        assertTrue(collector.ended);
+        assertTrue(adapter.isFinished());
+    }
+
+    @Test
+    public void testByteBuffers() {
+        String expected = convert(JSON, new JsonXmlWriter());
+        byte[] bytes = bytes(JSON);
+        for (boolean direct : new boolean[]{false, true}) {
+            StringWriter writer = new StringWriter();
+            JsonSaxAsyncAdapter adapter = new JsonSaxAsyncAdapter(new XmlSerializer(writer));
+            ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(16) : ByteBuffer.allocate(16);
+            for (int offset = 0; offset < bytes.length; offset += 10) {
+                buffer.clear();
+                buffer.position(3);
+                buffer.put(bytes, offset, Math.min(10, bytes.length - offset));
+                buffer.flip();
+                buffer.position(3);
+                ByteBuffer chunk = buffer.slice();
+                adapter.feed(chunk);
+                assertFalse(chunk.hasRemaining());
+            }
+            adapter.endOfInput();
+            assertEquals(expected, writer.toString());
+        }
+    }
+
+    @Test
+    public void testFilterAcrossChunks() {
+        JsonPathFilter filter = JsonPathFilter.excludes("/document/f", "/document/k");
+        JsonXmlConfig config = JsonXmlConfig.builder().pathFilter(filter).build();
+        String expected = convert(JSON, new JsonXmlWriter(config));
+        StringWriter writer = new StringWriter();
+        JsonSaxAsyncAdapter adapter = new JsonSaxAsyncAdapter(new XmlSerializer(writer), config);
+        for (byte b : bytes(JSON)) {
+            adapter.feed(new byte[]{b});
+        }
+        adapter.endOfInput();
+        assertEquals(expected, writer.toString());
+    }
+
+    @Test
+    public void testArtificialRootWithScalar() {
+        StringWriter writer = new StringWriter();
+        JsonSaxAsyncAdapter adapter = new JsonSaxAsyncAdapter(new XmlSerializer(writer), "", false, "root");
+        assertFalse(adapter.feed(bytes("12")));
+        adapter.endOfInput();
+        assertTrue(adapter.isFinished());
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><root>12</root>", writer.toString());
+    }
+
+    @Test
+    public void testDataAfterDocumentAreIgnored() {
+        JsonSaxAsyncAdapter adapter = new JsonSaxAsyncAdapter(new DefaultHandler());
+        assertTrue(adapter.feed(bytes("{\"a\":1} {")));
+        assertTrue(adapter.feed(bytes("not JSON")));
+        adapter.endOfInput();
+    }
+
+    @Test(expected = ParserException.class)
+    public void testIncompleteDocument() {
+        JsonSaxAsyncAdapter adapter = new JsonSaxAsyncAdapter(new DefaultHandler());
+        adapter.feed(bytes("{\"a\":{\"b\":1}"));
+        adapter.endOfInput();
+    }
+
+    @Test(expected = ParserException.class)
+    public void testInvalidChunk() {
+        new JsonSaxAsyncAdapter(new DefaultHandler()).feed(bytes("{\"a\":]"));
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String convert(String json, JsonXmlWriter jsonXmlWriter) {
+        StringWriter writer = new StringWriter();
+        jsonXmlWriter.write(json, writer);
+        return writer.toString();
+    }
+
+    private static class ElementCollector extends DefaultHandler {
+        private final List<String> elements = new ArrayList<>();
+        private boolean ended;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            elements.add(qName);
+        }
+
+        @Override
+        public void endDocument() {
+            ended = true;
+        }
+    }
+}
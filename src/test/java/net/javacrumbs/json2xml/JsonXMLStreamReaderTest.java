@@ -0,0 +1,142 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.custommonkey.xmlunit.Diff;
+import org.custommonkey.xmlunit.XMLUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stax.StAXSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.StringWriter;
+
+import static javax.xml.stream.XMLStreamConstants.END_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.JSON;
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.convertToXml;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonXMLStreamReaderTest {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Before
+    public void ignoreWhitespace() {
+        XMLUnit.setIgnoreWhitespace(true);
+    }
+
+    @Test
+    public void testSameAsSax() throws Exception {
+        assertSameAsSax(JSON, new JsonXmlReader(), new JsonXMLStreamReader(JSON_FACTORY.createParser(JSON)));
+    }
+
+    @Test
+    public void testSameAsSaxWithTypesAndNamespace() throws Exception {
+        assertSameAsSax(JSON, new JsonXmlReader("http://javacrumbs.net/test", true),
+                new JsonXMLStreamReader(JSON_FACTORY.createParser(JSON), "http://javacrumbs.net/test", true));
+    }
+
+    @Test
+    public void testSameAsSaxArtificialRoot() throws Exception {
+        String json = "[[{\"a\":1, \"e\":true}, {\"b\":2}],[{\"c\":3}, {\"d\":null, \"f\":\"\"}]]";
+        assertSameAsSax(json, new JsonXmlReader("http://javacrumbs.net/test", true, "root"),
+                new JsonXMLStreamReader(JSON_FACTORY.createParser(json), "http://javacrumbs.net/test", true, "root"));
+    }
+
+    @Test
+    public void testSameAsSaxWithConfig() throws Exception {
+        ElementNameConverter converter = name -> name.toUpperCase();
+        ConversionPlan plan = ConversionPlan.fromSamples(converter, "{\"document\":{\"c\":{\"d\":\"\"},\"k\":[[{\"l\":1}]]}}");
+        JsonPathFilter[] filters = {null, JsonPathFilter.includes("/document/c", "/document/k/*/l"),
+                JsonPathFilter.excludes("/document/a", "/document/f", "/document/k/n"), JsonPathFilter.includes("/document/h/i")};
+        for (JsonPathFilter filter : filters) {
+            JsonXmlConfig config = JsonXmlConfig.builder().namespaceUri("http://javacrumbs.net/test").addTypeAttributes(true)
+                    .elementNameConverter(converter).pathFilter(filter).plan(plan).build();
+            assertSameAsSax(JSON, new JsonXmlReader(config), new JsonXMLStreamReader(JSON_FACTORY.createParser(JSON), config));
+        }
+    }
+
+    @Test
+    public void testReadsLazily() throws Exception {
+        JsonParser jsonParser = JSON_FACTORY.createParser(JSON);
+        XMLStreamReader reader = new JsonXMLStreamReader(jsonParser);
+        assertEquals(START_ELEMENT, reader.next());
+        assertEquals("document", reader.getLocalName());
+        assertEquals(JsonToken.START_OBJECT, jsonParser.getCurrentToken());
+        assertEquals("document", jsonParser.getCurrentName());
+    }
+
+    @Test
+    public void testElementText() throws Exception {
+        XMLStreamReader reader = new JsonXMLStreamReader(JSON_FACTORY.createParser("{\"a\":{\"b\":\"text\",\"c\":1,\"d\":null}}"), "", true);
+        assertEquals(START_ELEMENT, reader.nextTag());
+        assertEquals("a", reader.getLocalName());
+        assertEquals(START_ELEMENT, reader.nextTag());
+        assertEquals("string", reader.getAttributeValue(null, "type"));
+        assertEquals("text", reader.getElementText());
+        assertEquals(START_ELEMENT, reader.nextTag());
+        assertEquals("1", reader.getElementText());
+        assertEquals(START_ELEMENT, reader.nextTag());
+        assertEquals("null", reader.getAttributeValue(0));
+        assertEquals("", reader.getElementText());
+        assertEquals(END_ELEMENT, reader.nextTag());
+        assertEquals(END_DOCUMENT, reader.next());
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void testMultipleRoots() throws Exception {
+        XMLStreamReader reader = new JsonXMLStreamReader(JSON_FACTORY.createParser("{\"a\":1, \"b\":2}"));
+        while (reader.hasNext()) {
+            reader.next();
+        }
+    }
+
+    @Test
+    public void testMaxDepth() throws Exception {
+        String json = "{\"a\":{\"b\":[[1]]}}";
+        readAll(new JsonXMLStreamReader(JSON_FACTORY.createParser(json), JsonXmlConfig.builder().maxDepth(4).build()));
+        try {
+            readAll(new JsonXMLStreamReader(JSON_FACTORY.createParser(json), JsonXmlConfig.builder().maxDepth(3).build()));
+            fail("Exception expected");
+        } catch (ParserException e) {
+            assertEquals("Maximal depth 3 exceeded", e.getMessage());
+        }
+    }
+
+    private static void readAll(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            reader.next();
+        }
+    }
+
+    private static void assertSameAsSax(String json, JsonXmlReader jsonXmlReader, XMLStreamReader streamReader) throws Exception {
+        StringWriter writer = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(new StAXSource(streamReader), new StreamResult(writer));
+        Diff diff = XMLUnit.compareXML(convertToXml(json, jsonXmlReader), writer.toString());
+        assertTrue(diff.toString(), diff.identical());
+    }
+}
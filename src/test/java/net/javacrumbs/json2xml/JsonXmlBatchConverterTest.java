@@ -0,0 +1,99 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonXmlBatchConverterTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    private final JsonXmlWriter jsonXmlWriter = new JsonXmlWriter("http://javacrumbs.net/test", true, "record");
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConvertInOrder() throws Exception {
+        StringBuilder input = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String record = "{\"id\":" + i + ",\"name\":\"name " + i + "\",\"tags\":[\"a\",\"b\"]}";
+            input.append(record).append(i % 100 == 0 ? "\n\n" : "\n");
+            StringWriter writer = new StringWriter();
+            jsonXmlWriter.write(record, writer);
+            expected.add(writer.toString());
+        }
+        List<String> result = new ArrayList<>();
+        long records = new JsonXmlBatchConverter(jsonXmlWriter, executor, 7, 3).convert(new StringReader(input.toString()), (recordNumber, xml) -> {
+            assertEquals(result.size(), recordNumber);
+            result.add(xml);
+        });
+        assertEquals(1000, records);
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void testConvertMerged() throws Exception {
+        StringWriter output = new StringWriter();
+        long records = new JsonXmlBatchConverter(jsonXmlWriter, executor, 2, 2).convertMerged(new StringReader("{\"a\":1}\n[true]\r\n\"x\""), output, "records");
+        assertEquals(3, records);
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                "<records xmlns=\"http://javacrumbs.net/test\">" +
+                "<record><a type=\"int\">1</a></record>" +
+                "<record type=\"array\"><record type=\"boolean\">true</record></record>" +
+                "<record type=\"string\">x</record>" +
+                "</records>", output.toString());
+    }
+
+    @Test
+    public void testConvertMergedEmpty() throws Exception {
+        StringWriter output = new StringWriter();
+        assertEquals(0, new JsonXmlBatchConverter(new JsonXmlWriter("", false, "record"), executor).convertMerged(new StringReader(""), output, "records"));
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><records/>", output.toString());
+    }
+
+    @Test
+    public void testInvalidRecord() throws Exception {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            input.append(i == 42 ? "{\"a\":" : "{\"a\":1}").append('\n');
+        }
+        List<Long> consumed = new ArrayList<>();
+        try {
+            new JsonXmlBatchConverter(jsonXmlWriter, executor, 10, 2).convert(new StringReader(input.toString()), (recordNumber, xml) -> consumed.add(recordNumber));
+            fail("Exception expected");
+        } catch (ParserException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Error in record 42: "));
+        }
+        assertEquals(40, consumed.size());
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.JSON;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class JsonXmlConfigTest {
+
+    private static final JsonXmlConfig CONFIG = JsonXmlConfig.builder()
+        .namespaceUri("http://javacrumbs.net/test")
+        .addTypeAttributes(true)
+        .artificialRootName("root")
+        .elementNameConverter(name -> name.toUpperCase())
+        .build();
+
+    @Test
+    public void testDefaults() {
+        JsonXmlConfig config = JsonXmlConfig.DEFAULT;
+        assertEquals("", config.getNamespaceUri());
+        assertFalse(config.isAddTypeAttributes());
+        assertNull(config.getArtificialRootName());
+        assertNull(config.getElementNameConverter());
+        assertEquals(JsonSaxAdapter.DEFAULT_MAX_DEPTH, config.getMaxDepth());
+        assertSame(JsonSaxAdapter.JSON_FACTORY, config.getJsonFactory());
+        assertNull(config.getPathFilter());
+        assertNull(config.getPlan());
+    }
+
+    @Test
+    public void testSameAsConstructor() {
+        JsonXmlWriter expected = new JsonXmlWriter("http://javacrumbs.net/test", true, "root", CONFIG.getElementNameConverter());
+        assertEquals(convert(expected, JSON), convert(new JsonXmlWriter(CONFIG), JSON));
+    }
+
+    @Test
+    public void testToBuilder() {
+        JsonXmlConfig config = CONFIG.toBuilder().addTypeAttributes(false).build();
+        assertEquals(convert(new JsonXmlWriter("http://javacrumbs.net/test", false, "root", CONFIG.getElementNameConverter()), JSON),
+            convert(new JsonXmlWriter(config), JSON));
+        assertEquals(CONFIG.getElementNameConverter(), config.getElementNameConverter());
+        assertEquals(true, CONFIG.isAddTypeAttributes());
+    }
+
+    @Test
+    public void testSharedBetweenThreads() throws Exception {
+        String expected = convert(new JsonXmlWriter(CONFIG), JSON);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(executor.submit(() -> convert(new JsonXmlWriter(CONFIG), JSON)));
+            }
+            for (Future<String> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxDepth() {
+        JsonXmlConfig.builder().maxDepth(0).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullJsonFactory() {
+        JsonXmlConfig.builder().jsonFactory(null).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullConfig() {
+        new JsonXmlReader((JsonXmlConfig) null);
+    }
+
+    private static String convert(JsonXmlWriter writer, String json) {
+        StringWriter out = new StringWriter();
+        writer.write(json, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.JSON;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JsonXmlFileConverterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final JsonXmlWriter jsonXmlWriter = new JsonXmlWriter("http://javacrumbs.net/test", true);
+
+    @Test
+    public void testConvert() throws Exception {
+        Path source = write(JSON);
+        Path target = folder.getRoot().toPath().resolve("target.xml");
+        new JsonXmlFileConverter(jsonXmlWriter).convert(source, target);
+        assertEquals(convert(JSON), read(target));
+    }
+
+    @Test
+    public void testRegionBoundaries() throws Exception {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 100000; i++) {
+            json.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"text\":\"\u017elu\u0165ou\u010dk\u00fd k\u016f\u0148 ").append(i).append("\"}");
+        }
+        json.append("]}");
+        Path source = write(json.toString());
+        Path target = folder.getRoot().toPath().resolve("target.xml");
+        long size = Files.size(source);
+        List<Long> progress = new ArrayList<>();
+        new JsonXmlFileConverter(jsonXmlWriter, 1001).convert(source, target, (bytesRead, totalBytes) -> {
+            assertEquals(size, totalBytes);
+            progress.add(bytesRead);
+        });
+        assertEquals(convert(json.toString()), read(target));
+        assertTrue(progress.size() > 1);
+        for (int i = 1; i < progress.size(); i++) {
+            assertTrue(progress.get(i) > progress.get(i - 1));
+        }
+        assertEquals(size, (long) progress.get(progress.size() - 1));
+    }
+
+    @Test
+    public void testTargetIsOverwritten() throws Exception {
+        Path source = write("{\"a\":1}");
+        Path target = write("previous content that is longer than the result");
+        new JsonXmlFileConverter(jsonXmlWriter).convert(source, target);
+        assertEquals(convert("{\"a\":1}"), read(target));
+    }
+
+    @Test(expected = ParserException.class)
+    public void testIncompleteJson() throws Exception {
+        new JsonXmlFileConverter(jsonXmlWriter, 4).convert(write("{\"a\":[1,2"), folder.getRoot().toPath().resolve("target.xml"));
+    }
+
+    @Test(expected = ParserException.class)
+    public void testEmptyFile() throws Exception {
+        new JsonXmlFileConverter(jsonXmlWriter).convert(write(""), folder.getRoot().toPath().resolve("target.xml"));
+    }
+
+    private Path write(String content) throws Exception {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(Path file) throws Exception {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    private String convert(String json) {
+        StringWriter writer = new StringWriter();
+        jsonXmlWriter.write(json, writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteConstraints;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.json.JsonWriteFeature;
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.custommonkey.xmlunit.Diff;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.sax.SAXSource;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.concurrent.ForkJoinPool;
+
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.JSON;
+import static net.javacrumbs.jsonunit.JsonAssert.assertJsonEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonXmlHelperTest {
+
+    @Test
+    public void testEmptyContainersAndSiblings() throws Exception {
+        String json = "{\"a\":{},\"b\":[],\"c\":[{},[],{\"d\":[1,{\"e\":null}]}],\"f\":\"x\"}";
+        Node node = JsonXmlHelper.convertToDom(json, "", true, "root");
+        assertJsonEquals(json, JsonXmlHelper.convertToJson(node));
+    }
+
+    @Test
+    public void testConvertToDomSameAsTransformer() throws Exception {
+        String[] namespaces = {"", null, "http://javacrumbs.net/test"};
+        for (String namespace : namespaces) {
+            for (boolean addTypeAttributes : new boolean[]{false, true}) {
+                Node node = JsonXmlHelper.convertToDom(JSON, namespace, addTypeAttributes, "root");
+                DOMResult result = new DOMResult();
+                TransformerFactory.newInstance().newTransformer().transform(
+                        new SAXSource(new JsonXmlReader(namespace, addTypeAttributes, "root"), new InputSource(new StringReader(JSON))), result);
+                assertTrue(node instanceof Document);
+                Diff diff = new Diff((Document) result.getNode(), (Document) node);
+                assertTrue(diff.toString(), diff.identical());
+                assertEquals(((Document) result.getNode()).getDocumentElement().getNamespaceURI(), ((Document) node).getDocumentElement().getNamespaceURI());
+            }
+        }
+    }
+
+    @Test
+    public void testConvertToDomInvalidJson() throws Exception {
+        String[] invalid = {"{\"a\":", "[1]"};
+        for (String json : invalid) {
+            try {
+                JsonXmlHelper.convertToDom(json, "", false, null);
+                fail("Exception expected for " + json);
+            } catch (TransformerException e) {
+                assertTrue(e.getCause() instanceof ParserException);
+            }
+        }
+    }
+
+    @Test
+    public void testDeepNesting() throws Exception {
+        int depth = 100000;
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        // built bottom-up, appending to an element that is already deep in the tree is slow
+        Element element = null;
+        for (int i = depth - 1; i >= 0; i--) {
+            Element parent = document.createElement(i == 0 ? "root" : "a");
+            if (i % 2 == 1) {
+                parent.setAttribute("type", "array");
+            }
+            if (element != null) {
+                parent.appendChild(element);
+            }
+            element = parent;
+        }
+        document.appendChild(element);
+        JsonFactory jsonFactory = JsonFactory.builder()
+                .streamWriteConstraints(StreamWriteConstraints.builder().maxNestingDepth(Integer.MAX_VALUE).build())
+                .build();
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            JsonXmlHelper.convertToJson(document, generator, name -> name);
+        }
+        String json = writer.toString();
+        assertTrue(json.startsWith("{\"a\":[{\"a\":[{"));
+        assertEquals(depth * 2, json.replace("\"a\":", "").length());
+    }
+
+    @Test
+    public void testIntegersSameAsBigDecimal() throws Exception {
+        String[] values = {"0", "-0", "+7", "007", "123456789012345678", "-123456789012345678", "9223372036854775807",
+                "-9223372036854775808", "9223372036854775808", "123456789012345678901234567890", "1e3"};
+        for (String value : values) {
+            assertEquals(value, writeBigDecimal(value), writeValue(JsonXmlHelper.TYPE.INT, value));
+        }
+    }
+
+    @Test
+    public void testFloats() throws Exception {
+        String[] values = {"1.5", "-0.0000001", "1.5e10", "2E-3", "0", "123456789012345678901234567890.5"};
+        for (String value : values) {
+            assertEquals(value, writeValue(JsonXmlHelper.TYPE.FLOAT, value));
+        }
+        // not valid in JSON, normalized by BigDecimal
+        assertEquals("0.5", writeValue(JsonXmlHelper.TYPE.FLOAT, ".5"));
+        assertEquals("1.5", writeValue(JsonXmlHelper.TYPE.FLOAT, "+1.5"));
+    }
+
+    @Test
+    public void testNegativeZeroFloat() throws Exception {
+        // BigDecimal has no negative zero, the sign is dropped
+        assertEquals("0.0", writeValue(JsonXmlHelper.TYPE.FLOAT, "-0.0"));
+        assertEquals("0", writeValue(JsonXmlHelper.TYPE.FLOAT, "-0"));
+        assertEquals("0.00e5", writeValue(JsonXmlHelper.TYPE.FLOAT, "-0.00e5"));
+        assertEquals("-0.01", writeValue(JsonXmlHelper.TYPE.FLOAT, "-0.01"));
+        assertEquals(writeBigDecimal("-0.0"), writeValue(JsonXmlHelper.TYPE.FLOAT, "-0.0"));
+        assertEquals("0", writeValue(JsonXmlHelper.TYPE.INT, "-0"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testInvalidInteger() throws Exception {
+        writeValue(JsonXmlHelper.TYPE.INT, "1x");
+    }
+
+    @Test
+    public void testIsJsonNumber() {
+        for (String value : new String[]{"0", "-1", "10.25", "1e5", "1E+5", "-0.5e-5"}) {
+            assertTrue(value, JsonXmlHelper.isJsonNumber(value));
+        }
+        for (String value : new String[]{"", "-", "01", "1.", ".1", "+1", "1e", "1e+", "1.5x", " 1", "NaN"}) {
+            assertFalse(value, JsonXmlHelper.isJsonNumber(value));
+        }
+    }
+
+    @Test
+    public void testParallelSameAsSequential() throws Exception {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 1000; i++) {
+            json.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"tags\":[\"a\",\"b\",\"\\u00e9\"],\"o\":{\"x\":null,\"y\":true,\"z\":1.5}}");
+        }
+        json.append("],\"a\":[],\"b\":{},\"c\":[[1,2,3,4,5]]}");
+        Node node = JsonXmlHelper.convertToDom(json.toString(), "", true, "root");
+        String expected = JsonXmlHelper.convertToJson(node);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int threshold : new int[]{1, 2, 3, 100, 5000}) {
+                assertEquals("Threshold " + threshold, expected, convertInParallel(node, new JsonFactory(), pool, threshold));
+            }
+            assertEquals(expected, convertInParallel(node, new JsonFactory(), ForkJoinPool.commonPool(), 7));
+            JsonFactory asciiFactory = JsonFactory.builder().enable(JsonWriteFeature.ESCAPE_NON_ASCII).build();
+            assertEquals(convertInParallel(node, asciiFactory, null, 1), convertInParallel(node, asciiFactory, pool, 1));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelLazyDom() throws Exception {
+        String json = "{\"a\":[1,2,3,4,5],\"b\":{\"c\":[{\"d\":1},{\"d\":2}]}}";
+        Node node = new JsonDomBuilder("", true, "root").buildLazy(json);
+        assertEquals(JsonXmlHelper.convertToJson(node), convertInParallel(node, new JsonFactory(), ForkJoinPool.commonPool(), 1));
+    }
+
+    @Test(expected = ParserException.class)
+    public void testParallelMaxDepth() throws Exception {
+        Node node = JsonXmlHelper.convertToDom("{\"a\":[1,2,{\"b\":[[1]]}]}", "", true, "root");
+        try (JsonGenerator generator = new JsonFactory().createGenerator(new StringWriter())) {
+            JsonXmlHelper.convertToJson(node, generator, name -> name, 4, ForkJoinPool.commonPool(), 1);
+        }
+    }
+
+    @Test
+    public void testParallelDuplicateInTwoChunks() throws Exception {
+        Node node = JsonXmlHelper.convertToDom("{\"a\":1,\"b\":2,\"c\":3}", "", true, "root");
+        // the DOM can not hold duplicate names, so the converter makes them
+        ElementNameConverter converter = name -> "c".equals(name) ? "a" : name;
+        JsonFactory jsonFactory = JsonFactory.builder().enable(StreamWriteFeature.STRICT_DUPLICATE_DETECTION).build();
+        try (JsonGenerator generator = jsonFactory.createGenerator(new StringWriter())) {
+            JsonXmlHelper.convertToJson(node, generator, converter, JsonSaxAdapter.DEFAULT_MAX_DEPTH, ForkJoinPool.commonPool(), 2);
+            fail("Exception expected");
+        } catch (JsonGenerationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Duplicate field 'a'"));
+        }
+    }
+
+    private static String convertInParallel(Node node, JsonFactory jsonFactory, ForkJoinPool pool, int threshold) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            JsonXmlHelper.convertToJson(node, generator, name -> name, JsonSaxAdapter.DEFAULT_MAX_DEPTH, pool, threshold);
+        }
+        return writer.toString();
+    }
+
+    @Test
+    public void testToType() {
+        assertEquals(JsonXmlHelper.TYPE.OBJECT, JsonXmlHelper.toTYPE(null));
+        assertEquals(JsonXmlHelper.TYPE.OBJECT, JsonXmlHelper.toTYPE(""));
+        assertEquals(JsonXmlHelper.TYPE.OBJECT, JsonXmlHelper.toTYPE("   "));
+        for (JsonXmlHelper.TYPE type : JsonXmlHelper.TYPE.values()) {
+            assertEquals(type, JsonXmlHelper.toTYPE(type.name()));
+            assertEquals(type, JsonXmlHelper.toTYPE(type.name().toLowerCase()));
+        }
+        assertEquals(JsonXmlHelper.TYPE.BOOLEAN, JsonXmlHelper.toTYPE("Boolean"));
+        assertNull(JsonXmlHelper.toTYPE("integer"));
+        assertNull(JsonXmlHelper.toTYPE(" int"));
+        assertNull(JsonXmlHelper.toTYPE("nul"));
+    }
+
+    @Test
+    public void testUnknownType() throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element root = document.createElement("root");
+        Element a = document.createElement("a");
+        Element b = document.createElement("b");
+        b.setAttribute("type", "integer");
+        document.appendChild(root).appendChild(a).appendChild(b);
+        try {
+            JsonXmlHelper.convertToJson(document);
+            fail("Exception expected");
+        } catch (ParserException e) {
+            assertEquals("Unknown type [integer] of element /root/a/b", e.getMessage());
+        }
+    }
+
+    private static String writeValue(JsonXmlHelper.TYPE type, String text) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = new JsonFactory().createGenerator(writer)) {
+            JsonXmlHelper.writeValue(generator, type, text);
+        }
+        return writer.toString();
+    }
+
+    private static String writeBigDecimal(String text) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = new JsonFactory().createGenerator(writer)) {
+            generator.writeNumber(new BigDecimal(text));
+        }
+        return writer.toString();
+    }
+
+    @Test(expected = ParserException.class)
+    public void testMaxDepth() throws Exception {
+        Node node = JsonXmlHelper.convertToDom("{\"a\":{\"b\":[[1]]}}", "", true, "root");
+        try (JsonGenerator generator = new JsonFactory().createGenerator(new StringWriter())) {
+            JsonXmlHelper.convertToJson(node, generator, name -> name, 3);
+        }
+    }
+
+    @Test
+    public void testMaxDepthEmptyContainer() throws Exception {
+        Node node = JsonXmlHelper.convertToDom("{\"a\":{\"b\":[]}}", "", true, "root");
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = new JsonFactory().createGenerator(writer)) {
+            JsonXmlHelper.convertToJson(node, generator, name -> name, 3);
+        }
+        assertJsonEquals("{\"a\":{\"b\":[]}}", writer.toString());
+        try (JsonGenerator generator = new JsonFactory().createGenerator(new StringWriter())) {
+            JsonXmlHelper.convertToJson(node, generator, name -> name, 2);
+            fail("Exception expected");
+        } catch (ParserException e) {
+            assertEquals("Maximal depth 2 exceeded", e.getMessage());
+        }
+    }
+}
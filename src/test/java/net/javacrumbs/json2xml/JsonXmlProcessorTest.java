@@ -0,0 +1,268 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.junit.After;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.JSON;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JsonXmlProcessorTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConvert() {
+        ChunkPublisher publisher = new ChunkPublisher(JSON, 7, null);
+        JsonXmlProcessor processor = new JsonXmlProcessor(new JsonXmlWriter("http://javacrumbs.net/test", true));
+        ChunkSubscriber subscriber = new ChunkSubscriber();
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        assertEquals(convert(JSON, new JsonXmlWriter("http://javacrumbs.net/test", true)), subscriber.text());
+    }
+
+    @Test
+    public void testSlowSubscriberThrottlesPublisher() {
+        ChunkPublisher publisher = new ChunkPublisher(JSON, 10, null);
+        JsonXmlProcessor processor = new JsonXmlProcessor();
+        ChunkSubscriber subscriber = new ChunkSubscriber();
+        processor.subscribe(subscriber);
+        publisher.subscribe(processor);
+        assertEquals(0, publisher.emitted);
+        subscriber.request(1);
+        assertEquals(1, subscriber.chunks.size());
+        assertEquals(1, publisher.emitted);
+        subscriber.request(2);
+        assertEquals(3, subscriber.chunks.size());
+        assertEquals(3, publisher.emitted);
+        assertFalse(subscriber.completed);
+        while (!subscriber.completed) {
+            subscriber.request(1);
+            assertTrue(publisher.requested <= subscriber.chunks.size() + 1);
+        }
+        assertEquals(convert(JSON, new JsonXmlWriter()), subscriber.text());
+    }
+
+    @Test
+    public void testAsynchronousPublisher() throws Exception {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 1000; i++) {
+            json.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"name\":\"name ").append(i).append("\"}");
+        }
+        json.append("]}");
+        ChunkPublisher publisher = new ChunkPublisher(json.toString(), 100, executor);
+        JsonXmlProcessor processor = new JsonXmlProcessor();
+        ChunkSubscriber subscriber = new ChunkSubscriber();
+        processor.subscribe(subscriber);
+        publisher.subscribe(processor);
+        while (!subscriber.done.await(1, TimeUnit.MILLISECONDS)) {
+            subscriber.request(1);
+        }
+        assertNull(subscriber.error);
+        assertEquals(convert(json.toString(), new JsonXmlWriter()), subscriber.text());
+    }
+
+    @Test
+    public void testInvalidJson() {
+        ChunkPublisher publisher = new ChunkPublisher("{\"a\":1,]}", 3, null);
+        JsonXmlProcessor processor = new JsonXmlProcessor();
+        ChunkSubscriber subscriber = new ChunkSubscriber();
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+        assertTrue(subscriber.error instanceof ParserException);
+        assertTrue(publisher.cancelled);
+    }
+
+    @Test
+    public void testIncompleteJson() {
+        ChunkPublisher publisher = new ChunkPublisher("{\"a\":{\"b\":1}", 3, null);
+        JsonXmlProcessor processor = new JsonXmlProcessor();
+        ChunkSubscriber subscriber = new ChunkSubscriber();
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+        assertTrue(subscriber.error instanceof ParserException);
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testCancel() {
+        ChunkPublisher publisher = new ChunkPublisher(JSON, 10, null);
+        JsonXmlProcessor processor = new JsonXmlProcessor();
+        ChunkSubscriber subscriber = new ChunkSubscriber();
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+        subscriber.request(1);
+        subscriber.subscription.cancel();
+        assertTrue(publisher.cancelled);
+        subscriber.request(1);
+        assertEquals(1, subscriber.chunks.size());
+    }
+
+    @Test
+    public void testNonPositiveRequest() {
+        ChunkPublisher publisher = new ChunkPublisher(JSON, 10, null);
+        JsonXmlProcessor processor = new JsonXmlProcessor();
+        ChunkSubscriber subscriber = new ChunkSubscriber();
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+        subscriber.request(0);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(publisher.cancelled);
+    }
+
+    @Test
+    public void testSecondSubscriberIsRejected() {
+        JsonXmlProcessor processor = new JsonXmlProcessor();
+        processor.subscribe(new ChunkSubscriber());
+        ChunkSubscriber second = new ChunkSubscriber();
+        processor.subscribe(second);
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    private static String convert(String json, JsonXmlWriter jsonXmlWriter) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            jsonXmlWriter.write(JsonSaxAdapter.JSON_FACTORY.createParser(json), out);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Publishes JSON in chunks of given size, on the requesting thread or on the executor.
+     */
+    private static class ChunkPublisher implements Publisher<ByteBuffer> {
+        private final byte[] data;
+        private final int chunkSize;
+        private final ExecutorService executor;
+        private volatile long requested;
+        private volatile int emitted;
+        private volatile boolean cancelled;
+        private int position;
+        private boolean emitting;
+
+        ChunkPublisher(String json, int chunkSize, ExecutorService executor) {
+            this.data = json.getBytes(StandardCharsets.UTF_8);
+            this.chunkSize = chunkSize;
+            this.executor = executor;
+        }
+
+        public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+            subscriber.onSubscribe(new Subscription() {
+                public void request(long n) {
+                    if (executor != null) {
+                        executor.execute(() -> emit(subscriber, n));
+                    } else {
+                        emit(subscriber, n);
+                    }
+                }
+
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+
+        private synchronized void emit(Subscriber<? super ByteBuffer> subscriber, long n) {
+            requested += n;
+            if (emitting) {
+                return;
+            }
+            emitting = true;
+            while (requested > 0 && !cancelled && position < data.length) {
+                int length = Math.min(chunkSize, data.length - position);
+                requested--;
+                emitted++;
+                subscriber.onNext(ByteBuffer.wrap(data, position, length));
+                position += length;
+            }
+            if (position == data.length && !cancelled) {
+                cancelled = true;
+                subscriber.onComplete();
+            }
+            emitting = false;
+        }
+    }
+
+    private static class ChunkSubscriber implements Subscriber<ByteBuffer> {
+        private final List<byte[]> chunks = new ArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Subscription subscription;
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        public synchronized void onNext(ByteBuffer chunk) {
+            byte[] bytes = new byte[chunk.remaining()];
+            chunk.get(bytes);
+            chunks.add(bytes);
+        }
+
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+
+        void request(long n) {
+            subscription.request(n);
+        }
+
+        synchronized String text() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (byte[] chunk : chunks) {
+                out.write(chunk, 0, chunk.length);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import org.custommonkey.xmlunit.Diff;
+import org.custommonkey.xmlunit.XMLUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.JSON;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JsonXmlReaderTest {
+
+    private static final String TEXT_JSON = "{\"root\":{\"text\":\"P\u0159\u00EDli\u0161 \u017Elu\u0165ou\u010Dk\u00FD k\u016F\u0148 \\uD83D\\uDE00\"}}";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testUtf8ByteStream() throws Exception {
+        assertSameXml(JSON, convert(new InputSource(new ByteArrayInputStream(JSON.getBytes(StandardCharsets.UTF_8)))));
+        assertSameXml(TEXT_JSON, convert(new InputSource(new ByteArrayInputStream(TEXT_JSON.getBytes(StandardCharsets.UTF_8)))));
+    }
+
+    @Test
+    public void testUtf16ByteStream() throws Exception {
+        for (Charset charset : new Charset[]{StandardCharsets.UTF_16BE, StandardCharsets.UTF_16LE, Charset.forName("UTF-32BE")}) {
+            InputSource source = new InputSource(new ByteArrayInputStream(TEXT_JSON.getBytes(charset)));
+            source.setEncoding(charset.name());
+            assertSameXml(TEXT_JSON, convert(source));
+            // detected by Jackson
+            assertSameXml(TEXT_JSON, convert(new InputSource(new ByteArrayInputStream(TEXT_JSON.getBytes(charset)))));
+        }
+    }
+
+    @Test
+    public void testOtherEncoding() throws Exception {
+        String json = "{\"root\":{\"text\":\"P\u0159\u00EDli\u0161 \u017Elu\u0165ou\u010Dk\u00FD k\u016F\u0148\"}}";
+        InputSource source = new InputSource(new ByteArrayInputStream(json.getBytes("ISO-8859-2")));
+        source.setEncoding("ISO-8859-2");
+        assertSameXml(json, convert(source));
+    }
+
+    @Test(expected = UnsupportedEncodingException.class)
+    public void testUnknownEncoding() throws Exception {
+        InputSource source = new InputSource(new ByteArrayInputStream(TEXT_JSON.getBytes(StandardCharsets.UTF_8)));
+        source.setEncoding("no such encoding");
+        new JsonXmlReader().parse(source);
+    }
+
+    @Test
+    public void testFileSystemId() throws Exception {
+        File file = folder.newFile("test.json");
+        Files.write(file.toPath(), TEXT_JSON.getBytes(StandardCharsets.UTF_8));
+        assertSameXml(TEXT_JSON, convert(new InputSource(file.getPath())));
+        assertSameXml(TEXT_JSON, convert(new InputSource(file.toURI().toString())));
+        // file can be removed, so it has been closed
+        assertTrue(file.delete());
+    }
+
+    @Test
+    public void testFileSystemIdWithEncoding() throws Exception {
+        String json = "{\"root\":{\"text\":\"P\u0159\u00EDli\u0161 \u017Elu\u0165ou\u010Dk\u00FD k\u016F\u0148\"}}";
+        File file = folder.newFile("test.json");
+        Files.write(file.toPath(), json.getBytes("ISO-8859-2"));
+        InputSource source = new InputSource(file.toURI().toString());
+        source.setEncoding("ISO-8859-2");
+        assertSameXml(json, convert(source));
+    }
+
+    @Test
+    public void testParseSystemId() throws Exception {
+        File file = folder.newFile("test.json");
+        Files.write(file.toPath(), JSON.getBytes(StandardCharsets.UTF_8));
+        JsonXmlReader reader = new JsonXmlReader();
+        CountingHandler handler = new CountingHandler();
+        reader.setContentHandler(handler);
+        reader.parse(file.getPath());
+        assertTrue(handler.elements > 0);
+    }
+
+    @Test
+    public void testCustomJsonFactory() throws Exception {
+        JsonFactory jsonFactory = JsonFactory.builder().enable(JsonReadFeature.ALLOW_JAVA_COMMENTS).build();
+        JsonXmlReader reader = new JsonXmlReader("", false, null, null, JsonSaxAdapter.DEFAULT_MAX_DEPTH, jsonFactory);
+        CountingHandler handler = new CountingHandler();
+        reader.setContentHandler(handler);
+        reader.parse(new InputSource(new StringReader("{\"root\":/* comment */{\"a\":1}}")));
+        assertEquals(2, handler.elements);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullJsonFactory() {
+        new JsonXmlReader("", false, null, null, JsonSaxAdapter.DEFAULT_MAX_DEPTH, null);
+    }
+
+    @Test(expected = SAXException.class)
+    public void testEmptyInputSource() throws Exception {
+        JsonXmlReader reader = new JsonXmlReader();
+        reader.setContentHandler(new CountingHandler());
+        reader.parse(new InputSource());
+    }
+
+    @Test
+    public void testFieldNamesAreReused() throws Exception {
+        // without interning, names are the same instances only if the parsers merge their symbols to the factory
+        JsonFactory jsonFactory = JsonFactory.builder().disable(JsonFactory.Feature.INTERN_FIELD_NAMES).build();
+        List<String> names = new ArrayList<>();
+        JsonXmlReader reader = new JsonXmlReader("", false, null, name -> {
+            names.add(name);
+            return name;
+        }, JsonSaxAdapter.DEFAULT_MAX_DEPTH, jsonFactory);
+        reader.setContentHandler(new CountingHandler());
+        byte[] json = "{\"root\":{\"a\":1}}".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 2; i++) {
+            TrackingInputStream inputStream = new TrackingInputStream(json);
+            reader.parse(new InputSource(inputStream));
+            assertFalse(inputStream.closed);
+            reader.parse(new InputSource(new StringReader("{\"root\":{\"a\":1}}")));
+        }
+        assertEquals(8, names.size());
+        // byte stream
+        assertSame(names.get(1), names.get(5));
+        // character stream
+        assertSame(names.get(3), names.get(7));
+    }
+
+    private static String convert(InputSource source) throws Exception {
+        StringWriter writer = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(new SAXSource(new JsonXmlReader(), source), new StreamResult(writer));
+        return writer.toString();
+    }
+
+    private static void assertSameXml(String json, String xml) throws Exception {
+        Diff diff = XMLUnit.compareXML(convert(new InputSource(new StringReader(json))), xml);
+        assertTrue(diff.toString(), diff.identical());
+    }
+
+    private static class TrackingInputStream extends ByteArrayInputStream {
+        private boolean closed;
+
+        TrackingInputStream(byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static class CountingHandler extends org.xml.sax.helpers.DefaultHandler {
+        private int elements;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, org.xml.sax.Attributes attributes) {
+            elements++;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import net.javacrumbs.json2xml.JsonSaxAdapter.ParserException;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.JSON;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class JsonXmlSessionTest {
+
+    private static final JsonXmlConfig CONFIG = JsonXmlConfig.builder()
+        .namespaceUri("http://javacrumbs.net/test")
+        .addTypeAttributes(true)
+        .artificialRootName("root")
+        .jsonFactory(JsonFactory.builder().recyclerPool(JsonRecyclerPools.newConcurrentDequePool()).build())
+        .build();
+
+    private static final String[] DOCUMENTS = {
+        JSON,
+        "{\"a\":\"\u017elu\u0165ou\u010dk\u00fd k\u016f\u0148 <&>\"}",
+        "[1,[2,[3,[4,[5,[6,[7,[8,[9,[10,[11,[12,[13,[14,[15,[16,[17,[18]]]]]]]]]]]]]]]]]]",
+        "\"scalar\""
+    };
+
+    @Test
+    public void testReuse() {
+        JsonXmlSession session = CONFIG.createSession();
+        for (int i = 0; i < 3; i++) {
+            for (String json : DOCUMENTS) {
+                assertEquals(convert(json), write(session, json));
+            }
+        }
+    }
+
+    @Test
+    public void testOutputStream() {
+        JsonXmlSession session = CONFIG.createSession();
+        for (String json : DOCUMENTS) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            session.write(json.getBytes(StandardCharsets.UTF_8), out);
+            assertEquals(convert(json), new String(out.toByteArray(), StandardCharsets.UTF_8));
+            // the same serializer writes to a writer afterwards
+            assertEquals(convert(json), write(session, json));
+        }
+    }
+
+    @Test
+    public void testReuseAfterFailure() {
+        JsonXmlSession session = CONFIG.createSession();
+        try {
+            write(session, "{\"a\":{\"b\":[1,2,{\"c\":]}}");
+            fail("Exception expected");
+        } catch (ParserException e) {
+            // expected
+        }
+        assertEquals(convert(JSON), write(session, JSON));
+    }
+
+    @Test
+    public void testPoolReusesSessions() {
+        JsonXmlSessionPool pool = new JsonXmlSessionPool(CONFIG, 1);
+        JsonXmlSession first = pool.acquire();
+        JsonXmlSession second = pool.acquire();
+        assertNotSame(first, second);
+        pool.release(first);
+        pool.release(second);
+        assertSame(first, pool.acquire());
+        assertNotSame(second, pool.acquire());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReleaseForeignSession() {
+        new JsonXmlSessionPool(CONFIG).release(JsonXmlConfig.DEFAULT.createSession());
+    }
+
+    @Test
+    public void testPoolSharedBetweenThreads() throws Exception {
+        JsonXmlSessionPool pool = new JsonXmlSessionPool(CONFIG, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String json = DOCUMENTS[i % DOCUMENTS.length];
+                results.add(executor.submit(() -> {
+                    StringWriter writer = new StringWriter();
+                    pool.write(json, writer);
+                    return writer.toString();
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(convert(DOCUMENTS[i % DOCUMENTS.length]), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String write(JsonXmlSession session, String json) {
+        StringWriter writer = new StringWriter();
+        session.write(json, writer);
+        return writer.toString();
+    }
+
+    private static String convert(String json) {
+        StringWriter writer = new StringWriter();
+        new JsonXmlWriter(CONFIG).write(json, writer);
+        return writer.toString();
+    }
+}
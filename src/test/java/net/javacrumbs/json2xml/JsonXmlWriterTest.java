@@ -0,0 +1,141 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import org.custommonkey.xmlunit.Diff;
+import org.custommonkey.xmlunit.XMLUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.JSON;
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.convertToXml;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JsonXmlWriterTest {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Before
+    public void ignoreWhitespace() {
+        XMLUnit.setIgnoreWhitespace(true);
+    }
+
+    @Test
+    public void testFieldNamesAreReused() {
+        // without interning, names are the same instances only if the parsers merge their symbols to the factory
+        JsonFactory jsonFactory = JsonFactory.builder().disable(JsonFactory.Feature.INTERN_FIELD_NAMES).build();
+        List<String> names = new ArrayList<>();
+        JsonXmlWriter writer = new JsonXmlWriter("", false, null, name -> {
+            names.add(name);
+            return name;
+        }, JsonSaxAdapter.DEFAULT_MAX_DEPTH, jsonFactory);
+        writer.write("{\"root\":{\"a\":1}}", new StringWriter());
+        writer.write("{\"root\":{\"a\":1}}", new StringWriter());
+        assertEquals(4, names.size());
+        assertSame(names.get(1), names.get(3));
+    }
+
+    @Test
+    public void testSameAsTransformer() throws Exception {
+        assertSameAsTransformer(JSON, new JsonXmlReader(), new JsonXmlWriter());
+    }
+
+    @Test
+    public void testSameAsTransformerWithTypesAndNamespace() throws Exception {
+        assertSameAsTransformer(JSON, new JsonXmlReader("http://javacrumbs.net/test", true), new JsonXmlWriter("http://javacrumbs.net/test", true));
+    }
+
+    @Test
+    public void testSameAsTransformerArtificialRoot() throws Exception {
+        String json = "[[{\"a\":1, \"e\":true}, {\"b\":2}],[{\"c\":3}, {\"d\":4}]]";
+        assertSameAsTransformer(json, new JsonXmlReader("", true, "root"), new JsonXmlWriter("", true, "root"));
+    }
+
+    @Test
+    public void testOutput() {
+        StringWriter writer = new StringWriter();
+        new JsonXmlWriter("http://javacrumbs.net/test", true).write("{\"root\":{\"a\":[1,2],\"b\":null,\"c\":\"x\"}}", writer);
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                "<root xmlns=\"http://javacrumbs.net/test\">" +
+                "<a type=\"array\"><a type=\"int\">1</a><a type=\"int\">2</a></a>" +
+                "<b type=\"null\"/>" +
+                "<c type=\"string\">x</c>" +
+                "</root>", writer.toString());
+    }
+
+    @Test
+    public void testCustomJsonFactory() {
+        JsonFactory jsonFactory = JsonFactory.builder().enable(JsonReadFeature.ALLOW_JAVA_COMMENTS).build();
+        StringWriter writer = new StringWriter();
+        new JsonXmlWriter("", false, null, null, JsonSaxAdapter.DEFAULT_MAX_DEPTH, jsonFactory).write("{\"root\":/* comment */1}", writer);
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><root>1</root>", writer.toString());
+    }
+
+    @Test
+    public void testEscaping() {
+        StringWriter writer = new StringWriter();
+        new JsonXmlWriter().write("{\"root\":\"<a> & \\\"b\\\"\\r\\n\\t\\u0001\\u0000\\uffff\"}", writer);
+        // characters not allowed in XML 1.0 are replaced
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><root>&lt;a&gt; &amp; \"b\"&#13;\n\t\uFFFD\uFFFD\uFFFD</root>", writer.toString());
+    }
+
+    @Test
+    public void testUtf8() throws Exception {
+        StringBuilder value = new StringBuilder();
+        // long enough to cross the buffer boundary with multi-byte characters and surrogate pairs
+        for (int i = 0; i < 5000; i++) {
+            value.append("žluťoučký 😀 ");
+        }
+        String json = "{\"root\":\"" + value + "\"}";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new JsonXmlWriter().write(JSON_FACTORY.createParser(json), out);
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><root>" + value + "</root>", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testGrowingBuffer() throws Exception {
+        StringBuilder value = new StringBuilder();
+        // sizes around the steps of the growing buffer, surrogate pairs end up split between the steps
+        for (int i = 0; i < 3000; i++) {
+            value.append(i % 3 == 0 ? "\ud83d\ude00" : "a");
+            String json = "{\"root\":\"" + value + "\"}";
+            String expected = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><root>" + value + "</root>";
+            StringWriter writer = new StringWriter();
+            new JsonXmlWriter().write(json, writer);
+            assertEquals(expected, writer.toString());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new JsonXmlWriter().write(JSON_FACTORY.createParser(json), out);
+            assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void assertSameAsTransformer(String json, JsonXmlReader reader, JsonXmlWriter jsonXmlWriter) throws Exception {
+        StringWriter writer = new StringWriter();
+        jsonXmlWriter.write(json, writer);
+        Diff diff = XMLUnit.compareXML(convertToXml(json, reader), writer.toString());
+        assertTrue(diff.toString(), diff.identical());
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.javacrumbs.json2xml;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import net.javacrumbs.json2xml.JsonXmlHelper.TYPE;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.JSON;
+import static net.javacrumbs.json2xml.JsonSaxAdapterTest.convertToXml;
+import static net.javacrumbs.jsonunit.JsonAssert.assertJsonEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TypeInferringContentHandlerTest {
+
+    @Test
+    public void testBackAndForthWithoutTypes() throws Exception {
+        String xml = convertToXml(JSON, new JsonXmlReader("", false, "root"));
+        assertJsonEquals(JSON, convert(xml, null));
+    }
+
+    @Test
+    public void testInference() throws Exception {
+        String xml = "<order>\n" +
+            "  <id>007</id>\n" +
+            "  <items>\n" +
+            "    <item><sku>A</sku><count>2</count></item>\n" +
+            "    <item><sku>B</sku><count>1</count></item>\n" +
+            "  </items>\n" +
+            "  <note>  hi </note>\n" +
+            "  <paid>true</paid>\n" +
+            "  <total>12.50</total>\n" +
+            "  <big>123456789012345678901234567890</big>\n" +
+            "  <empty/>\n" +
+            "</order>";
+        assertEquals("{\"id\":\"007\",\"items\":[{\"sku\":\"A\",\"count\":2},{\"sku\":\"B\",\"count\":1}],\"note\":\"  hi \"," +
+            "\"paid\":true,\"total\":12.50,\"big\":123456789012345678901234567890,\"empty\":null}", convert(xml, null));
+    }
+
+    @Test
+    public void testShapeHints() throws Exception {
+        String xml = "<order><id>123</id><items><item><sku>A</sku></item></items><a><a>1</a></a></order>";
+        assertEquals("{\"id\":123,\"items\":{\"item\":{\"sku\":\"A\"}},\"a\":[1]}", convert(xml, null));
+
+        Map<String, TYPE> hints = new HashMap<>();
+        hints.put("/order/id", TYPE.STRING);
+        hints.put("/order/items", TYPE.ARRAY);
+        hints.put("/order/a", TYPE.OBJECT);
+        assertEquals("{\"id\":\"123\",\"items\":[{\"sku\":\"A\"}],\"a\":{\"a\":1}}", convert(xml, hints));
+    }
+
+    @Test
+    public void testTypeAttributes() throws Exception {
+        String xml = "<root><a type=\"string\">1<b>2</b></a><c type=\"array\"/><d type=\"object\"/><e/></root>";
+        assertEquals("{\"a\":\"12\",\"c\":[],\"d\":{},\"e\":null}", convert(xml, null));
+    }
+
+    @Test
+    public void testLookaheadLimit() throws Exception {
+        String xml = "<list><x><a>1</a><b>2</b></x><x><a>3</a><b>4</b></x></list>";
+        assertEquals("[{\"a\":1,\"b\":2},{\"a\":3,\"b\":4}]", convert(xml, 9));
+        // the first item does not fit into the lookahead, duplicate names are written
+        assertEquals("{\"x\":{\"a\":1,\"b\":2},\"x\":{\"a\":3,\"b\":4}}", convert(xml, 8));
+        assertEquals("{\"x\":{\"a\":1,\"b\":2},\"x\":{\"a\":3,\"b\":4}}", convert(xml, 0));
+    }
+
+    @Test
+    public void testNestedLookahead() throws Exception {
+        String xml = "<r><x><y><z>1</z></y><y><z>2</z></y></x><x><y>3</y></x></r>";
+        assertEquals("[[{\"z\":1},{\"z\":2}],{\"y\":3}]", convert(xml, null));
+    }
+
+    @Test(expected = SAXParseException.class)
+    public void testUnknownType() throws Exception {
+        convert("<root><a type=\"integer\">1</a></root>", null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeLookahead() {
+        new TypeInferringContentHandler(null, name -> name, null, -1);
+    }
+
+    private static String convert(String xml, Map<String, TYPE> shapeHints) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = JsonSaxAdapter.JSON_FACTORY.createGenerator(writer)) {
+            JsonXmlHelper.convertToJsonInferringTypes(new InputSource(new StringReader(xml)), generator, name -> name, shapeHints);
+        }
+        return writer.toString();
+    }
+
+    private static String convert(String xml, int maxLookahead) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = JsonSaxAdapter.JSON_FACTORY.createGenerator(writer)) {
+            SAXParserFactory.newInstance().newSAXParser().parse(new InputSource(new StringReader(xml)),
+                new TypeInferringContentHandler(generator, name -> name, Collections.<String, TYPE>emptyMap(), maxLookahead));
+        }
+        return writer.toString();
+    }
+}